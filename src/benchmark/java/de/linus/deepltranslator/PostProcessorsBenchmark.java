@@ -0,0 +1,89 @@
+package de.linus.deepltranslator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of post-processing a translation of 1 KB (1024 chars), so the score is the cost per KB.
+ * <p></p>
+ * A clean translation is what DeepL usually returns, a dirty one contains work for every post-processor.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostProcessorsBenchmark {
+
+    private static final String CLEAN = "Die \u00DCbersetzung wurde erfolgreich abgeschlossen.\n"
+            + "Bitte pr\u00FCfen Sie die Ergebnisse und melden Sie Fehler. "
+            + "Vielen Dank f\u00FCr Ihre Geduld, wir melden uns in K\u00FCrze bei Ihnen. ";
+
+    private static final String DIRTY = " Die \u00DCbersetzung wurde  erfolgreich abgeschlossen.<br>"
+            + "Bitte pr\u00FCfen Sie die Ergebnisse &amp; melden Sie Fehler.\n"
+            + "Vielen Dank f\u00FCr Ihre Geduld, wir melden uns in K\u00FCrze bei Ihnen. ";
+
+    private static final List<PostProcessor> CHAIN = Arrays.asList(
+            PostProcessors.PRESERVE_NEWLINES,
+            PostProcessors.DECODE_HTML_ENTITIES,
+            PostProcessors.NORMALIZE_WHITESPACE_PRESERVE_NEWLINES);
+
+    @Param({"clean", "dirty"})
+    private String input;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        String sample = input.equals("clean") ? CLEAN : DIRTY;
+        StringBuilder builder = new StringBuilder();
+
+        while (builder.length() < 1024) {
+            builder.append(sample);
+        }
+
+        builder.setLength(1023);
+        text = builder.append('.').toString();
+    }
+
+    /**
+     * Lower bound: copying the chars and creating the string.
+     */
+    @Benchmark
+    public String copy() {
+        return new String(text.toCharArray());
+    }
+
+    /**
+     * The post-processing before {@link PostProcessors} existed.
+     */
+    @Benchmark
+    public String regex() {
+        return text.trim().replaceAll("\\s{2,}", " ");
+    }
+
+    @Benchmark
+    public String defaultProcessing() {
+        return PostProcessors.apply(text, PostProcessors.DEFAULT);
+    }
+
+    @Benchmark
+    public String chain() {
+        return PostProcessors.apply(text, CHAIN);
+    }
+
+}
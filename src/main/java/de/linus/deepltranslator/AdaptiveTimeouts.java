@@ -0,0 +1,318 @@
+package de.linus.deepltranslator;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Derives the timeout and the retry delay of each request from the latencies observed so far,
+ * instead of using the same {@link DeepLConfiguration#getTimeout()} and {@link DeepLConfiguration#getRepetitionsDelay()}
+ * for every request.
+ * <p></p>
+ * Latencies are kept in histograms per text length bucket and language pair.
+ * If a language pair has too few samples, the histogram of all language pairs in the same length bucket is used,
+ * and if that has too few samples as well, the static settings of the configuration are used.
+ * <p></p>
+ * Only first attempts are recorded, since retries have longer timeouts. A timed out request is counted, but its latency is unknown.
+ * If more requests time out than the percentile allows, e.g. more than 1% for the 99th percentile,
+ * the static timeout is used until enough requests succeed again. So timeouts never grow from timed out requests.
+ * <p></p>
+ * An instance learns while it is used, so it can be shared by multiple configurations.
+ *
+ * @see DeepLConfiguration.Builder#setAdaptiveTimeouts(AdaptiveTimeouts)
+ */
+public class AdaptiveTimeouts {
+
+    /**
+     * The percentile (0-100) of the latencies the timeout is based on.
+     * <p></p>
+     * Default value is 99.
+     */
+    private final double percentile;
+
+    /**
+     * The timeout is the latency at the {@link AdaptiveTimeouts#percentile} multiplied with this factor.
+     * Each retry doubles the timeout.
+     * <p></p>
+     * Default value is 2.
+     */
+    private final double timeoutMultiplier;
+
+    /**
+     * The lower limit of an adaptive timeout.
+     * <p></p>
+     * Default duration is 2 seconds.
+     */
+    private final Duration minTimeout;
+
+    /**
+     * The upper limit of an adaptive timeout.
+     * <p></p>
+     * By default, the timeout of the configuration ({@link DeepLConfiguration#getTimeout()}).
+     */
+    private final Duration maxTimeout;
+
+    /**
+     * The lower limit of a retry delay and the delay after a crashed browser instance.
+     * <p></p>
+     * Default duration is 100 milliseconds.
+     */
+    private final Duration minRetryDelay;
+
+    /**
+     * The upper limit of a retry delay.
+     * <p></p>
+     * Default duration is 10 seconds.
+     */
+    private final Duration maxRetryDelay;
+
+    /**
+     * Retry delays are randomly varied by up to this fraction (0-1), so retries of concurrent requests are spread out.
+     * <p></p>
+     * Default value is 0.5.
+     */
+    private final double jitter;
+
+    /**
+     * Latencies per length bucket and language pair, and per length bucket.
+     */
+    private final LatencyHistograms latencies = new LatencyHistograms();
+
+    private AdaptiveTimeouts(double percentile, double timeoutMultiplier, Duration minTimeout, Duration maxTimeout,
+                             Duration minRetryDelay, Duration maxRetryDelay, double jitter) {
+        this.percentile = percentile;
+        this.timeoutMultiplier = timeoutMultiplier;
+        this.minTimeout = minTimeout;
+        this.maxTimeout = maxTimeout;
+        this.minRetryDelay = minRetryDelay;
+        this.maxRetryDelay = maxRetryDelay;
+        this.jitter = jitter;
+    }
+
+    /**
+     * The percentile (0-100) of the latencies the timeout is based on.
+     * <p></p>
+     * Default value is 99.
+     */
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * The timeout is the latency at the {@link AdaptiveTimeouts#percentile} multiplied with this factor.
+     * Each retry doubles the timeout.
+     * <p></p>
+     * Default value is 2.
+     */
+    public double getTimeoutMultiplier() {
+        return timeoutMultiplier;
+    }
+
+    /**
+     * The lower limit of an adaptive timeout.
+     * <p></p>
+     * Default duration is 2 seconds.
+     */
+    public Duration getMinTimeout() {
+        return minTimeout;
+    }
+
+    /**
+     * The upper limit of an adaptive timeout or null for the timeout of the configuration.
+     * <p></p>
+     * By default, the timeout of the configuration ({@link DeepLConfiguration#getTimeout()}).
+     */
+    public Duration getMaxTimeout() {
+        return maxTimeout;
+    }
+
+    /**
+     * The lower limit of a retry delay and the delay after a crashed browser instance.
+     * <p></p>
+     * Default duration is 100 milliseconds.
+     */
+    public Duration getMinRetryDelay() {
+        return minRetryDelay;
+    }
+
+    /**
+     * The upper limit of a retry delay.
+     * <p></p>
+     * Default duration is 10 seconds.
+     */
+    public Duration getMaxRetryDelay() {
+        return maxRetryDelay;
+    }
+
+    /**
+     * Retry delays are randomly varied by up to this fraction (0-1), so retries of concurrent requests are spread out.
+     * <p></p>
+     * Default value is 0.5.
+     */
+    public double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Adds the latency of the successful first attempt of a request.
+     */
+    void record(int textLength, SourceLanguage from, TargetLanguage to, long millis) {
+        latencies.record(textLength, from, to, millis);
+    }
+
+    /**
+     * Adds a timed out first attempt of a request.
+     */
+    void recordTimeout(int textLength, SourceLanguage from, TargetLanguage to) {
+        latencies.recordTimeout(textLength, from, to);
+    }
+
+    /**
+     * The timeout of a request.
+     *
+     * @param attempt 0 for the first request, 1 for the first retry etc.
+     * @param fallback the timeout if the percentile is unknown, and the upper limit if there is no {@link AdaptiveTimeouts#maxTimeout}
+     */
+    Duration getTimeout(int textLength, SourceLanguage from, TargetLanguage to, int attempt, Duration fallback) {
+        long latency = latencies.percentile(textLength, from, to, percentile);
+
+        if (latency < 0)
+            return fallback;
+
+        long maxMillis = maxTimeout != null ? maxTimeout.toMillis() : fallback.toMillis();
+        double millis = latency * timeoutMultiplier * Math.pow(2, Math.min(attempt, 16));
+        millis = Math.min(maxMillis, Math.max(minTimeout.toMillis(), millis));
+        return Duration.ofMillis((long) millis);
+    }
+
+    /**
+     * The delay before a retry: the median latency, doubled with each retry and varied by the jitter.
+     *
+     * @param attempt 0 for the delay after the first request, 1 after the first retry etc.
+     * @param crashed whether the browser instance crashed instead of timing out, so no backoff is needed
+     * @param fallback the delay if there are too few samples
+     */
+    Duration getRetryDelay(int textLength, SourceLanguage from, TargetLanguage to, int attempt, boolean crashed, Duration fallback) {
+        double millis;
+
+        if (crashed) {
+            millis = minRetryDelay.toMillis();
+        } else {
+            long latency = latencies.percentile(textLength, from, to, 50);
+
+            if (latency < 0)
+                return fallback;
+
+            millis = latency * Math.pow(2, Math.min(attempt, 16));
+            millis = Math.max(minRetryDelay.toMillis(), Math.min(maxRetryDelay.toMillis(), millis));
+        }
+
+        millis *= 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Duration.ofMillis((long) millis);
+    }
+
+    public static class Builder {
+
+        private double percentile;
+        private double timeoutMultiplier;
+        private Duration minTimeout;
+        private Duration maxTimeout;
+        private Duration minRetryDelay;
+        private Duration maxRetryDelay;
+        private double jitter;
+
+        public Builder() {
+            percentile = 99;
+            timeoutMultiplier = 2;
+            minTimeout = Duration.ofSeconds(2);
+            maxTimeout = null;
+            minRetryDelay = Duration.ofMillis(100);
+            maxRetryDelay = Duration.ofSeconds(10);
+            jitter = 0.5;
+        }
+
+        /**
+         * The percentile (0-100) of the latencies the timeout is based on.
+         * <p></p>
+         * Default value is 99.
+         */
+        public Builder setPercentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * The timeout is the latency at the percentile multiplied with this factor.
+         * Each retry doubles the timeout.
+         * <p></p>
+         * Default value is 2.
+         */
+        public Builder setTimeoutMultiplier(double timeoutMultiplier) {
+            this.timeoutMultiplier = timeoutMultiplier;
+            return this;
+        }
+
+        /**
+         * The lower limit of an adaptive timeout.
+         * <p></p>
+         * Default duration is 2 seconds.
+         */
+        public Builder setMinTimeout(Duration minTimeout) {
+            this.minTimeout = minTimeout;
+            return this;
+        }
+
+        /**
+         * The upper limit of an adaptive timeout or null for the timeout of the configuration.
+         * <p></p>
+         * By default, the timeout of the configuration ({@link DeepLConfiguration#getTimeout()}).
+         */
+        public Builder setMaxTimeout(Duration maxTimeout) {
+            this.maxTimeout = maxTimeout;
+            return this;
+        }
+
+        /**
+         * The lower limit of a retry delay and the delay after a crashed browser instance.
+         * <p></p>
+         * Default duration is 100 milliseconds.
+         */
+        public Builder setMinRetryDelay(Duration minRetryDelay) {
+            this.minRetryDelay = minRetryDelay;
+            return this;
+        }
+
+        /**
+         * The upper limit of a retry delay.
+         * <p></p>
+         * Default duration is 10 seconds.
+         */
+        public Builder setMaxRetryDelay(Duration maxRetryDelay) {
+            this.maxRetryDelay = maxRetryDelay;
+            return this;
+        }
+
+        /**
+         * Retry delays are randomly varied by up to this fraction (0-1), so retries of concurrent requests are spread out.
+         * <p></p>
+         * Default value is 0.5.
+         */
+        public Builder setJitter(double jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Builds the policy.
+         */
+        public AdaptiveTimeouts build() {
+            if ((maxTimeout != null && minTimeout.compareTo(maxTimeout) > 0) || minRetryDelay.compareTo(maxRetryDelay) > 0)
+                throw new IllegalStateException("Minimum must not be greater than maximum");
+            if (jitter < 0 || jitter > 1)
+                throw new IllegalStateException("Jitter must be between 0 and 1");
+
+            return new AdaptiveTimeouts(percentile, timeoutMultiplier, minTimeout, maxTimeout, minRetryDelay, maxRetryDelay, jitter);
+        }
+
+    }
+
+}
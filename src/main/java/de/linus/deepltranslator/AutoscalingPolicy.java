@@ -0,0 +1,296 @@
+package de.linus.deepltranslator;
+
+import java.time.Duration;
+
+/**
+ * Decides how many browser instances are kept in the pool, which is shared by all translators.
+ * <p></p>
+ * Requests wait for an available browser instance instead of starting their own.
+ * The pool grows if requests wait too long or too many requests are waiting,
+ * and shrinks if browser instances are idle. The peak demand is learned per hour of the day,
+ * so capacity is started ahead of predictable ramps.
+ *
+ * @see DeepLTranslator#setAutoscalingPolicy(AutoscalingPolicy)
+ */
+public class AutoscalingPolicy {
+
+    /**
+     * The minimum number of browser instances.
+     * <p></p>
+     * Default value is 1.
+     */
+    private final int minInstances;
+
+    /**
+     * The maximum number of browser instances.
+     * <p></p>
+     * Default value is 8.
+     */
+    private final int maxInstances;
+
+    /**
+     * The pool grows if a request waits longer than this for a browser instance.
+     * <p></p>
+     * Default duration is 250 milliseconds.
+     */
+    private final Duration scaleUpWaitTime;
+
+    /**
+     * The pool grows if at least this many requests are waiting for a browser instance.
+     * <p></p>
+     * Default value is 2.
+     */
+    private final int scaleUpQueueDepth;
+
+    /**
+     * Browser instances which weren't used for this duration are quit,
+     * unless the pool would be smaller than the minimum or the predicted demand.
+     * <p></p>
+     * Default duration is 5 minutes.
+     */
+    private final Duration idleTimeout;
+
+    /**
+     * The memory available for all browser instances in bytes, 0 for unlimited.
+     * Together with {@link AutoscalingPolicy#instanceMemory}, it limits the number of browser instances.
+     * <p></p>
+     * Default value is 0.
+     */
+    private final long memoryBudget;
+
+    /**
+     * The estimated memory of a single browser instance in bytes.
+     * <p></p>
+     * Default value is 300 MiB.
+     */
+    private final long instanceMemory;
+
+    /**
+     * How far ahead browser instances are started for the learned demand, null to disable pre-starting.
+     * <p></p>
+     * Default duration is 10 minutes.
+     */
+    private final Duration prestartLookahead;
+
+    private AutoscalingPolicy(int minInstances, int maxInstances, Duration scaleUpWaitTime, int scaleUpQueueDepth,
+                              Duration idleTimeout, long memoryBudget, long instanceMemory, Duration prestartLookahead) {
+        this.minInstances = minInstances;
+        this.maxInstances = maxInstances;
+        this.scaleUpWaitTime = scaleUpWaitTime;
+        this.scaleUpQueueDepth = scaleUpQueueDepth;
+        this.idleTimeout = idleTimeout;
+        this.memoryBudget = memoryBudget;
+        this.instanceMemory = instanceMemory;
+        this.prestartLookahead = prestartLookahead;
+    }
+
+    /**
+     * The minimum number of browser instances.
+     * <p></p>
+     * Default value is 1.
+     */
+    public int getMinInstances() {
+        return minInstances;
+    }
+
+    /**
+     * The maximum number of browser instances.
+     * <p></p>
+     * Default value is 8.
+     */
+    public int getMaxInstances() {
+        return maxInstances;
+    }
+
+    /**
+     * The pool grows if a request waits longer than this for a browser instance.
+     * <p></p>
+     * Default duration is 250 milliseconds.
+     */
+    public Duration getScaleUpWaitTime() {
+        return scaleUpWaitTime;
+    }
+
+    /**
+     * The pool grows if at least this many requests are waiting for a browser instance.
+     * <p></p>
+     * Default value is 2.
+     */
+    public int getScaleUpQueueDepth() {
+        return scaleUpQueueDepth;
+    }
+
+    /**
+     * Browser instances which weren't used for this duration are quit,
+     * unless the pool would be smaller than the minimum or the predicted demand.
+     * <p></p>
+     * Default duration is 5 minutes.
+     */
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * The memory available for all browser instances in bytes, 0 for unlimited.
+     * Together with {@link AutoscalingPolicy#instanceMemory}, it limits the number of browser instances.
+     * <p></p>
+     * Default value is 0.
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * The estimated memory of a single browser instance in bytes.
+     * <p></p>
+     * Default value is 300 MiB.
+     */
+    public long getInstanceMemory() {
+        return instanceMemory;
+    }
+
+    /**
+     * How far ahead browser instances are started for the learned demand, null to disable pre-starting.
+     * <p></p>
+     * Default duration is 10 minutes.
+     */
+    public Duration getPrestartLookahead() {
+        return prestartLookahead;
+    }
+
+    /**
+     * The maximum number of browser instances within the memory budget.
+     */
+    int getCapacity() {
+        if (memoryBudget <= 0 || instanceMemory <= 0)
+            return maxInstances;
+
+        return (int) Math.min(maxInstances, memoryBudget / instanceMemory);
+    }
+
+    public static class Builder {
+
+        private int minInstances;
+        private int maxInstances;
+        private Duration scaleUpWaitTime;
+        private int scaleUpQueueDepth;
+        private Duration idleTimeout;
+        private long memoryBudget;
+        private long instanceMemory;
+        private Duration prestartLookahead;
+
+        public Builder() {
+            minInstances = 1;
+            maxInstances = 8;
+            scaleUpWaitTime = Duration.ofMillis(250);
+            scaleUpQueueDepth = 2;
+            idleTimeout = Duration.ofMinutes(5);
+            memoryBudget = 0;
+            instanceMemory = 300L * 1024 * 1024;
+            prestartLookahead = Duration.ofMinutes(10);
+        }
+
+        /**
+         * The minimum number of browser instances.
+         * <p></p>
+         * Default value is 1.
+         */
+        public Builder setMinInstances(int minInstances) {
+            this.minInstances = minInstances;
+            return this;
+        }
+
+        /**
+         * The maximum number of browser instances.
+         * <p></p>
+         * Default value is 8.
+         */
+        public Builder setMaxInstances(int maxInstances) {
+            this.maxInstances = maxInstances;
+            return this;
+        }
+
+        /**
+         * The pool grows if a request waits longer than this for a browser instance.
+         * <p></p>
+         * Default duration is 250 milliseconds.
+         */
+        public Builder setScaleUpWaitTime(Duration scaleUpWaitTime) {
+            this.scaleUpWaitTime = scaleUpWaitTime;
+            return this;
+        }
+
+        /**
+         * The pool grows if at least this many requests are waiting for a browser instance.
+         * <p></p>
+         * Default value is 2.
+         */
+        public Builder setScaleUpQueueDepth(int scaleUpQueueDepth) {
+            this.scaleUpQueueDepth = scaleUpQueueDepth;
+            return this;
+        }
+
+        /**
+         * Browser instances which weren't used for this duration are quit,
+         * unless the pool would be smaller than the minimum or the predicted demand.
+         * <p></p>
+         * Default duration is 5 minutes.
+         */
+        public Builder setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        /**
+         * The memory available for all browser instances in bytes, 0 for unlimited.
+         * Together with the instance memory, it limits the number of browser instances.
+         * <p></p>
+         * Default value is 0.
+         */
+        public Builder setMemoryBudget(long memoryBudget) {
+            this.memoryBudget = memoryBudget;
+            return this;
+        }
+
+        /**
+         * The estimated memory of a single browser instance in bytes.
+         * <p></p>
+         * Default value is 300 MiB.
+         */
+        public Builder setInstanceMemory(long instanceMemory) {
+            this.instanceMemory = instanceMemory;
+            return this;
+        }
+
+        /**
+         * How far ahead browser instances are started for the learned demand, null to disable pre-starting.
+         * <p></p>
+         * Default duration is 10 minutes.
+         */
+        public Builder setPrestartLookahead(Duration prestartLookahead) {
+            this.prestartLookahead = prestartLookahead;
+            return this;
+        }
+
+        /**
+         * Builds the policy.
+         */
+        public AutoscalingPolicy build() {
+            if (minInstances < 0 || maxInstances < 1 || minInstances > maxInstances)
+                throw new IllegalStateException("Invalid number of instances");
+
+            AutoscalingPolicy policy = new AutoscalingPolicy(minInstances, maxInstances, scaleUpWaitTime, scaleUpQueueDepth,
+                    idleTimeout, memoryBudget, instanceMemory, prestartLookahead);
+
+            if (policy.getCapacity() < 1)
+                throw new IllegalStateException("Memory budget is smaller than the memory of a browser instance");
+
+            if (minInstances > policy.getCapacity())
+                throw new IllegalStateException("Minimum number of instances exceeds the memory budget");
+
+            return policy;
+        }
+
+    }
+
+}
@@ -0,0 +1,15 @@
+package de.linus.deepltranslator;
+
+import org.openqa.selenium.TimeoutException;
+
+/**
+ * Thrown if the browser instance crashed during a translation.
+ * The browser instance is quit, so a retry on another one usually succeeds right away.
+ */
+public class BrowserCrashedException extends TimeoutException {
+
+    public BrowserCrashedException(Throwable cause) {
+        super("Browser instance crashed", cause);
+    }
+
+}
@@ -1,6 +1,10 @@
 package de.linus.deepltranslator;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Function;
 
 public class DeepLConfiguration {
@@ -35,18 +39,105 @@ public class DeepLConfiguration {
     /**
      * Whether the translation should be post-processed.
      * <p></p>
-     * If post-processing is enabled, leading and trailing spaces are removed
+     * If post-processing is enabled, the post-processors are applied to the translation.
+     * By default, leading and trailing spaces are removed
      * and multiple consecutive spaces are replaced with a single space.
      * <p></p>
      * By default, post-processing is disabled.
      */
     private final boolean postProcessing;
 
-    private DeepLConfiguration(Duration timeout, int repetitions, Function<Integer, Duration> repetitionsDelay, boolean postProcessing) {
+    /**
+     * Is only of use if {@link DeepLConfiguration#postProcessing} is enabled.
+     * The post-processors are applied to the translation in this order.
+     * <p></p>
+     * Default value is [{@link PostProcessors#DEFAULT}].
+     */
+    private final List<PostProcessor> postProcessors;
+
+    /**
+     * Glossary terms, placeholders and markup which should not be translated.
+     * <p></p>
+     * By default, nothing is protected.
+     */
+    private final TextProtection textProtection;
+
+    /**
+     * Whether slow requests should be hedged.
+     * <p></p>
+     * If hedging is enabled and a request takes longer than the {@link DeepLConfiguration#hedgingPercentile}
+     * of the latencies of translations with a similar text length, the same request is started on another idle browser instance.
+     * The first translation is used and the other request is cancelled.
+     * The time is measured from the acquisition of the browser instance.
+     * No request is hedged if no browser instance is idle or if other requests are waiting for one.
+     * <p></p>
+     * By default, hedging is disabled.
+     */
+    private final boolean hedging;
+
+    /**
+     * Is only of use if {@link DeepLConfiguration#hedging} is enabled.
+     * The percentile (0-100) of the latencies of translations with a similar text length after which a request is hedged.
+     * <p></p>
+     * Default value is 95.
+     */
+    private final double hedgingPercentile;
+
+    /**
+     * Decides when a browser instance is replaced with a new one.
+     * <p></p>
+     * Default value is {@link DriverRecyclingPolicy#DISABLED}.
+     *
+     * @see DriverRecyclingPolicy.Builder
+     */
+    private final DriverRecyclingPolicy driverRecyclingPolicy;
+
+    /**
+     * Whether {@link SourceLanguage#AUTO_DETECT} should be resolved in-process before translating.
+     * <p></p>
+     * If language detection is enabled and the {@link LanguageDetector} is at least
+     * {@link DeepLConfiguration#languageDetectionConfidence} sure about the language,
+     * the text is translated from the detected language. Otherwise, DeepL detects the language.
+     * <p></p>
+     * By default, language detection is disabled.
+     */
+    private final boolean languageDetection;
+
+    /**
+     * Is only of use if {@link DeepLConfiguration#languageDetection} is enabled.
+     * The minimum confidence (0-1) of a detected language.
+     * <p></p>
+     * Default value is 0.95.
+     */
+    private final double languageDetectionConfidence;
+
+    /**
+     * Derives the timeout and the retry delay of each request from the observed latencies
+     * per text length and language pair. Until enough latencies are observed,
+     * {@link DeepLConfiguration#timeout} and {@link DeepLConfiguration#repetitionsDelay} are used.
+     * <p></p>
+     * By default, adaptive timeouts are disabled (null).
+     *
+     * @see AdaptiveTimeouts.Builder
+     */
+    private final AdaptiveTimeouts adaptiveTimeouts;
+
+    private DeepLConfiguration(Duration timeout, int repetitions, Function<Integer, Duration> repetitionsDelay, boolean postProcessing,
+                               List<PostProcessor> postProcessors, TextProtection textProtection, boolean hedging, double hedgingPercentile,
+                               DriverRecyclingPolicy driverRecyclingPolicy, boolean languageDetection, double languageDetectionConfidence,
+                               AdaptiveTimeouts adaptiveTimeouts) {
         this.timeout = timeout;
         this.repetitions = repetitions;
         this.repetitionsDelay = repetitionsDelay;
         this.postProcessing = postProcessing;
+        this.postProcessors = postProcessors;
+        this.textProtection = textProtection;
+        this.hedging = hedging;
+        this.hedgingPercentile = hedgingPercentile;
+        this.driverRecyclingPolicy = driverRecyclingPolicy;
+        this.languageDetection = languageDetection;
+        this.languageDetectionConfidence = languageDetectionConfidence;
+        this.adaptiveTimeouts = adaptiveTimeouts;
     }
 
     /**
@@ -85,7 +176,8 @@ public class DeepLConfiguration {
     /**
      * Whether the translation should be post-processed.
      * <p></p>
-     * If post-processing is enabled, leading and trailing spaces are removed
+     * If post-processing is enabled, the post-processors are applied to the translation.
+     * By default, leading and trailing spaces are removed
      * and multiple consecutive spaces are replaced with a single space.
      * <p></p>
      * By default, post-processing is disabled.
@@ -94,18 +186,127 @@ public class DeepLConfiguration {
         return postProcessing;
     }
 
+    /**
+     * Is only of use if {@link DeepLConfiguration#postProcessing} is enabled.
+     * The post-processors are applied to the translation in this order.
+     * <p></p>
+     * Default value is [{@link PostProcessors#DEFAULT}].
+     */
+    public List<PostProcessor> getPostProcessors() {
+        return postProcessors;
+    }
+
+    /**
+     * Glossary terms, placeholders and markup which should not be translated.
+     * <p></p>
+     * By default, nothing is protected.
+     *
+     * @return the text protection or null if disabled
+     */
+    public TextProtection getTextProtection() {
+        return textProtection;
+    }
+
+    /**
+     * Whether slow requests should be hedged.
+     * <p></p>
+     * If hedging is enabled and a request takes longer than the {@link DeepLConfiguration#hedgingPercentile}
+     * of the latencies of translations with a similar text length, the same request is started on another idle browser instance.
+     * The first translation is used and the other request is cancelled.
+     * The time is measured from the acquisition of the browser instance.
+     * No request is hedged if no browser instance is idle or if other requests are waiting for one.
+     * <p></p>
+     * By default, hedging is disabled.
+     */
+    public boolean isHedgingEnabled() {
+        return hedging;
+    }
+
+    /**
+     * Is only of use if {@link DeepLConfiguration#hedging} is enabled.
+     * The percentile (0-100) of the latencies of translations with a similar text length after which a request is hedged.
+     * <p></p>
+     * Default value is 95.
+     */
+    public double getHedgingPercentile() {
+        return hedgingPercentile;
+    }
+
+    /**
+     * Decides when a browser instance is replaced with a new one.
+     * <p></p>
+     * Default value is {@link DriverRecyclingPolicy#DISABLED}.
+     *
+     * @see DriverRecyclingPolicy.Builder
+     */
+    public DriverRecyclingPolicy getDriverRecyclingPolicy() {
+        return driverRecyclingPolicy;
+    }
+
+    /**
+     * Whether {@link SourceLanguage#AUTO_DETECT} should be resolved in-process before translating.
+     * <p></p>
+     * If language detection is enabled and the {@link LanguageDetector} is at least
+     * {@link DeepLConfiguration#languageDetectionConfidence} sure about the language,
+     * the text is translated from the detected language. Otherwise, DeepL detects the language.
+     * <p></p>
+     * By default, language detection is disabled.
+     */
+    public boolean isLanguageDetectionEnabled() {
+        return languageDetection;
+    }
+
+    /**
+     * Is only of use if {@link DeepLConfiguration#languageDetection} is enabled.
+     * The minimum confidence (0-1) of a detected language.
+     * <p></p>
+     * Default value is 0.95.
+     */
+    public double getLanguageDetectionConfidence() {
+        return languageDetectionConfidence;
+    }
+
+    /**
+     * Derives the timeout and the retry delay of each request from the observed latencies
+     * per text length and language pair. Until enough latencies are observed,
+     * {@link DeepLConfiguration#timeout} and {@link DeepLConfiguration#repetitionsDelay} are used.
+     * <p></p>
+     * By default, adaptive timeouts are disabled (null).
+     *
+     * @see AdaptiveTimeouts.Builder
+     */
+    public AdaptiveTimeouts getAdaptiveTimeouts() {
+        return adaptiveTimeouts;
+    }
+
     public static class Builder {
 
         private Duration timeout;
         private int repetitions;
         private Function<Integer, Duration> repetitionsDelay;
         private boolean postProcessing;
+        private List<PostProcessor> postProcessors;
+        private TextProtection textProtection;
+        private boolean hedging;
+        private double hedgingPercentile;
+        private DriverRecyclingPolicy driverRecyclingPolicy;
+        private boolean languageDetection;
+        private double languageDetectionConfidence;
+        private AdaptiveTimeouts adaptiveTimeouts;
 
         public Builder() {
             timeout = Duration.ofSeconds(10);
             repetitions = 3;
             repetitionsDelay = retryNumber -> Duration.ofMillis(3000L + 5000L * retryNumber);
             postProcessing = false;
+            postProcessors = Collections.singletonList(PostProcessors.DEFAULT);
+            textProtection = null;
+            hedging = false;
+            hedgingPercentile = 95;
+            driverRecyclingPolicy = DriverRecyclingPolicy.DISABLED;
+            languageDetection = false;
+            languageDetectionConfidence = 0.95;
+            adaptiveTimeouts = null;
         }
 
         /**
@@ -157,11 +358,117 @@ public class DeepLConfiguration {
             return this;
         }
 
+        /**
+         * Enables post-processing and replaces the default post-processors.
+         * The post-processors are applied to the translation in this order.
+         * <p></p>
+         * Default value is [{@link PostProcessors#DEFAULT}].
+         *
+         * @see PostProcessors
+         */
+        public Builder setPostProcessors(PostProcessor... postProcessors) {
+            this.postProcessing = true;
+            this.postProcessors = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(postProcessors)));
+            return this;
+        }
+
+        /**
+         * Glossary terms, placeholders and markup which should not be translated.
+         * They are masked before and restored after each translation.
+         * <p></p>
+         * By default, nothing is protected.
+         *
+         * @see TextProtection.Builder
+         */
+        public Builder setTextProtection(TextProtection textProtection) {
+            this.textProtection = textProtection;
+            return this;
+        }
+
+        /**
+         * Whether slow requests should be hedged.
+         * <p></p>
+         * If hedging is enabled and a request takes longer than the {@link DeepLConfiguration#hedgingPercentile}
+         * of the latencies of translations with a similar text length, the same request is started on another idle browser instance.
+         * The first translation is used and the other request is cancelled.
+         * The time is measured from the acquisition of the browser instance.
+     * No request is hedged if no browser instance is idle or if other requests are waiting for one.
+         * <p></p>
+         * By default, hedging is disabled.
+         */
+        public Builder setHedging(boolean hedging) {
+            this.hedging = hedging;
+            return this;
+        }
+
+        /**
+         * Is only of use if {@link DeepLConfiguration#hedging} is enabled.
+         * The percentile (0-100) of the latencies of translations with a similar text length after which a request is hedged.
+         * <p></p>
+         * Default value is 95.
+         */
+        public Builder setHedgingPercentile(double hedgingPercentile) {
+            this.hedgingPercentile = hedgingPercentile;
+            return this;
+        }
+
+        /**
+         * Decides when a browser instance is replaced with a new one.
+         * <p></p>
+         * Default value is {@link DriverRecyclingPolicy#DISABLED}.
+         *
+         * @see DriverRecyclingPolicy.Builder
+         */
+        public Builder setDriverRecyclingPolicy(DriverRecyclingPolicy driverRecyclingPolicy) {
+            this.driverRecyclingPolicy = driverRecyclingPolicy;
+            return this;
+        }
+
+        /**
+         * Whether {@link SourceLanguage#AUTO_DETECT} should be resolved in-process before translating.
+         * <p></p>
+         * If language detection is enabled and the {@link LanguageDetector} is at least
+         * {@link DeepLConfiguration#languageDetectionConfidence} sure about the language,
+         * the text is translated from the detected language. Otherwise, DeepL detects the language.
+         * <p></p>
+         * By default, language detection is disabled.
+         */
+        public Builder setLanguageDetection(boolean languageDetection) {
+            this.languageDetection = languageDetection;
+            return this;
+        }
+
+        /**
+         * Is only of use if {@link DeepLConfiguration#languageDetection} is enabled.
+         * The minimum confidence (0-1) of a detected language.
+         * <p></p>
+         * Default value is 0.95.
+         */
+        public Builder setLanguageDetectionConfidence(double languageDetectionConfidence) {
+            this.languageDetectionConfidence = languageDetectionConfidence;
+            return this;
+        }
+
+        /**
+         * Derives the timeout and the retry delay of each request from the observed latencies
+         * per text length and language pair. Until enough latencies are observed,
+         * {@link DeepLConfiguration#timeout} and {@link DeepLConfiguration#repetitionsDelay} are used.
+         * <p></p>
+         * By default, adaptive timeouts are disabled (null).
+         *
+         * @see AdaptiveTimeouts.Builder
+         */
+        public Builder setAdaptiveTimeouts(AdaptiveTimeouts adaptiveTimeouts) {
+            this.adaptiveTimeouts = adaptiveTimeouts;
+            return this;
+        }
+
         /**
          * Builds the configuration.
          */
         public DeepLConfiguration build() {
-            return new DeepLConfiguration(timeout, repetitions, repetitionsDelay, postProcessing);
+            return new DeepLConfiguration(timeout, repetitions, repetitionsDelay, postProcessing, postProcessors, textProtection,
+                    hedging, hedgingPercentile, driverRecyclingPolicy, languageDetection, languageDetectionConfidence, adaptiveTimeouts);
         }
 
     }
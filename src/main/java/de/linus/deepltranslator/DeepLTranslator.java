@@ -3,11 +3,19 @@ package de.linus.deepltranslator;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class DeepLTranslator extends DeepLTranslatorBase {
+public class DeepLTranslator extends DeepLTranslatorBase implements Translator {
+
+    /**
+     * How often a cancelled translation is noticed while it waits for a retry.
+     */
+    private static final long CANCELLATION_CHECK_MILLIS = 100;
 
     /**
      * With default settings.
@@ -42,38 +50,123 @@ public class DeepLTranslator extends DeepLTranslatorBase {
      * @throws IllegalStateException invalid argument(s)
      * @throws TimeoutException translation failed and no more repetitions available
      */
+    @Override
     public String translate(String text, SourceLanguage from, TargetLanguage to) throws IllegalStateException, TimeoutException {
+        return translate(text, from, to, null, new AtomicBoolean());
+    }
+
+    private String translate(String text, SourceLanguage from, TargetLanguage to, TranslationListener listener, AtomicBoolean cancelled)
+            throws IllegalStateException, TimeoutException, CancellationException {
         isValid(text, from, to);
 
+        TextProtection textProtection = getConfiguration().getTextProtection();
+        TextProtection.MaskedText maskedText = null;
+
+        if (textProtection != null) {
+            maskedText = textProtection.mask(text);
+            text = maskedText.getText();
+            isValid(text, from, to);
+
+            if (listener != null && maskedText.isMasked()) {
+                TextProtection.MaskedText finalMaskedText = maskedText;
+                TranslationListener maskedListener = listener;
+                listener = partial -> maskedListener.onPartialTranslation(finalMaskedText.restore(partial));
+            }
+        }
+
+        if (from == SourceLanguage.AUTO_DETECT && getConfiguration().isLanguageDetectionEnabled()) {
+            from = LanguageDetector.getDefault().detect(text, getConfiguration().getLanguageDetectionConfidence()).orElse(from);
+        }
+
         TimeoutException timeoutException = null;
 
-        for (int i = 0; i <= getConfiguration().getRepetitions(); i++) {
+        for (int i = 0; i <= getConfiguration().getRepetitions() && !cancelled.get(); i++) {
             try {
-                return getTranslation(text, from, to);
+                String translation = getTranslation(text, from, to, i, listener, cancelled);
+                return maskedText != null ? maskedText.restore(translation) : translation;
             } catch (TimeoutException e) {
-                try {
-                    Thread.sleep(getConfiguration().getRepetitionsDelay().apply(i).toMillis());
-                } catch (InterruptedException ignore) {}
+                Duration delay = getConfiguration().getRepetitionsDelay().apply(i);
+                AdaptiveTimeouts adaptiveTimeouts = getConfiguration().getAdaptiveTimeouts();
+
+                if (adaptiveTimeouts != null) {
+                    boolean crashed = e instanceof BrowserCrashedException;
+                    delay = adaptiveTimeouts.getRetryDelay(text.length(), from, to, i, crashed, delay);
+                }
 
+                sleep(delay, cancelled);
                 timeoutException = e;
             }
         }
 
+        if (cancelled.get())
+            throw new CancellationException("Translation was cancelled");
+
         if (timeoutException != null)
             throw timeoutException;
 
         return null;
     }
 
+    /**
+     * Sleeps in short slices, so a cancelled translation doesn't wait for the whole delay.
+     */
+    private static void sleep(Duration delay, AtomicBoolean cancelled) {
+        long endMillis = System.currentTimeMillis() + delay.toMillis();
+        long remainingMillis;
+
+        while (!cancelled.get() && (remainingMillis = endMillis - System.currentTimeMillis()) > 0) {
+            try {
+                Thread.sleep(Math.min(remainingMillis, CANCELLATION_CHECK_MILLIS));
+            } catch (InterruptedException ignore) {}
+        }
+    }
+
     /**
      * @see DeepLTranslator#translate(String, SourceLanguage, TargetLanguage)
      */
+    @Override
     public CompletableFuture<String> translateAsync(String text, SourceLanguage from, TargetLanguage to) throws IllegalStateException {
         isValid(text, from, to);
 
         return CompletableFuture.supplyAsync(() -> translate(text, from, to), executor);
     }
 
+    /**
+     * Translates a text asynchronously like {@link DeepLTranslator#translateAsync(String, SourceLanguage, TargetLanguage)},
+     * but passes the partial translations to the listener while the translation is rendered.
+     * <p></p>
+     * The listener is called from the thread which runs the translation. The returned future completes with the final translation.
+     * Cancelling the future aborts the translation, so it can be cancelled as soon as a partial translation is sufficient.
+     * If the listener throws an exception, the translation is aborted and the future completes with that exception.
+     *
+     * @param text source text
+     * @param from source language
+     * @param to target language
+     * @param listener receives the partial translations
+     *
+     * @return the final translation
+     * @throws IllegalStateException invalid argument(s)
+     * @see TranslationListener
+     */
+    public CompletableFuture<String> translateStreaming(String text, SourceLanguage from, TargetLanguage to, TranslationListener listener)
+            throws IllegalStateException {
+        isValid(text, from, to);
+
+        if (listener == null)
+            throw new IllegalStateException("Listener is null");
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> translate(text, from, to, listener, cancelled), executor);
+
+        future.whenComplete((translation, ex) -> {
+            if (future.isCancelled()) {
+                cancelled.set(true);
+            }
+        });
+
+        return future;
+    }
+
     /**
      * Blocks until all async translations from this instance have completed execution, or the timeout occurs,
      * or the current thread is interrupted, whichever happens first.
@@ -88,14 +181,29 @@ public class DeepLTranslator extends DeepLTranslatorBase {
         return result;
     }
 
+    /**
+     * Sizes the browser pool, which is shared by all instances of DeepLTranslator, with the given policy.
+     * <p></p>
+     * Without autoscaling (default), a new browser instance is started whenever a translation finds none available
+     * and browser instances are only quit by {@link DeepLTranslator#shutdown()} or the {@link DriverRecyclingPolicy}.
+     * With autoscaling, translations wait for a browser instance and the pool grows and shrinks with the load.
+     *
+     * @param policy the policy or null to disable autoscaling
+     */
+    public static void setAutoscalingPolicy(AutoscalingPolicy policy) {
+        DeepLTranslatorBase.setAutoscaler(policy);
+    }
+
     /**
      * Tries to quit all browsers and all active threads, which were started for asynchronous translating.
      * This method does not wait for the running tasks to finish.
      */
     public static void shutdown() {
+        DeepLTranslatorBase.setAutoscaler(null);
         GLOBAL_INSTANCES.forEach(WebDriver::quit);
         EXECUTOR_LIST.forEach(ExecutorService::shutdownNow);
         CLEANUP_EXECUTOR.shutdownNow();
+        HEDGING_EXECUTOR.shutdownNow();
     }
 
 }
@@ -3,16 +3,28 @@ package de.linus.deepltranslator;
 import org.openqa.selenium.*;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.UnreachableBrowserException;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * API for the DeepL Translator
@@ -41,13 +53,39 @@ class DeepLTranslatorBase {
     /**
      * All browser instances created.
      */
-    static final List<WebDriver> GLOBAL_INSTANCES = new ArrayList<>();
+    static final List<WebDriver> GLOBAL_INSTANCES = new CopyOnWriteArrayList<>();
 
     /**
      * Available browser instances for this configuration.
      */
     private static final LinkedBlockingQueue<WebDriver> AVAILABLE_INSTANCES = new LinkedBlockingQueue<>();
 
+    /**
+     * Age and usage of all browser instances in {@link DeepLTranslatorBase#GLOBAL_INSTANCES}.
+     *
+     * @see DriverRecyclingPolicy
+     */
+    private static final Map<WebDriver, DriverStats> DRIVER_STATS = new ConcurrentHashMap<>();
+
+    /**
+     * For hedged requests.
+     *
+     * @see DeepLConfiguration#isHedgingEnabled()
+     */
+    static final ExecutorService HEDGING_EXECUTOR = Executors.newCachedThreadPool();
+
+    /**
+     * Latencies of the successful translations, from the acquisition of the browser instance.
+     */
+    private static final LatencyHistograms LATENCIES = new LatencyHistograms();
+
+    /**
+     * Sizes the browser pool, null if a browser instance is started whenever none is available.
+     *
+     * @see DeepLTranslator#setAutoscalingPolicy(AutoscalingPolicy)
+     */
+    private static volatile PoolAutoscaler autoscaler;
+
     /**
      * User-Agent for WebDriver.
      */
@@ -135,27 +173,136 @@ class DeepLTranslatorBase {
     /**
      * Generates a request with all settings like timeout etc.
      * and returns the translation if succeeded.
+     * <p></p>
+     * If hedging is enabled, a slow request is duplicated onto an idle browser instance.
+     * Requests with a listener are never hedged.
+     *
+     * @param attempt 0 for the first request, 1 for the first retry etc.
+     * @param listener receives the partial translations, may be null
+     * @param cancelled aborts the request with a {@link CancellationException} once set
      */
-    String getTranslation(String text, SourceLanguage from, TargetLanguage to) throws TimeoutException {
-        long timeoutMillisEnd = System.currentTimeMillis() + configuration.getTimeout().toMillis();
-        WebDriver driver = AVAILABLE_INSTANCES.poll();
+    String getTranslation(String text, SourceLanguage from, TargetLanguage to, int attempt, TranslationListener listener,
+                          AtomicBoolean cancelled) throws TimeoutException, CancellationException {
+        if (configuration.isHedgingEnabled() && listener == null) {
+            long hedgingDelay = LATENCIES.percentile(text.length(), from, to, configuration.getHedgingPercentile());
 
-        try {
-            if (driver == null) {
-                driver = newWebDriver();
-                driver.manage().timeouts().pageLoadTimeout(Duration.ofMillis(timeoutMillisEnd - System.currentTimeMillis()));
+            if (hedgingDelay >= 0)
+                return getHedgedTranslation(text, from, to, attempt, hedgingDelay, cancelled);
+        }
+
+        return getTranslation(text, from, to, attempt, null, null, listener, cancelled);
+    }
 
-                GLOBAL_INSTANCES.add(driver);
-                driver.get("https://www.deepl.com/translator");
-                ((ChromeDriver) driver).executeScript(DISABLE_ANIMATIONS_SCRIPT);
+    /**
+     * Starts the request on an available browser instance. If it takes longer than the hedging delay
+     * after it acquired its browser instance, the same request is started on another idle browser instance.
+     * The first translation wins, the other request is cancelled and its browser instance is cleaned up as usual.
+     */
+    private String getHedgedTranslation(String text, SourceLanguage from, TargetLanguage to, int attempt, long hedgingDelay,
+                                        AtomicBoolean cancelled) throws TimeoutException, CancellationException {
+        AtomicBoolean primaryCancelled = new AtomicBoolean(cancelled.get());
+        AtomicBoolean hedgeCancelled = new AtomicBoolean(cancelled.get());
+        CompletableFuture<Void> acquired = new CompletableFuture<>();
+        List<CompletableFuture<String>> requests = new ArrayList<>();
+
+        CompletableFuture<String> primary = CompletableFuture.supplyAsync(
+                () -> getTranslation(text, from, to, attempt, null, acquired, null, primaryCancelled), HEDGING_EXECUTOR);
+        primary.whenComplete((translation, ex) -> acquired.complete(null));
+        requests.add(primary);
+
+        try {
+            // Like the latencies, the hedging delay starts once the browser instance is acquired
+            acquired.get();
+            return primary.get(hedgingDelay, TimeUnit.MILLISECONDS);
+        } catch (java.util.concurrent.TimeoutException e) {
+            // Primary request is slow, hedge if a browser instance is idle
+            WebDriver idleDriver = pollIdleDriver();
+
+            if (idleDriver != null) {
+                requests.add(CompletableFuture.supplyAsync(
+                        () -> getTranslation(text, from, to, attempt, idleDriver, null, null, hedgeCancelled), HEDGING_EXECUTOR));
             }
-        } catch (TimeoutException e) {
-            GLOBAL_INSTANCES.remove(driver);
-            driver.close();
-            throw e;
+        } catch (InterruptedException e) {
+            primaryCancelled.set(true);
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting for the translation", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
         }
 
         try {
+            return FutureUtils.firstSuccessful(requests).join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        } finally {
+            primaryCancelled.set(true);
+            hedgeCancelled.set(true);
+        }
+    }
+
+    /**
+     * Returns an idle browser instance for a hedged request or null.
+     * Requests which wait for the autoscaler come first, a hedged request only duplicates one which is running already.
+     */
+    private static WebDriver pollIdleDriver() {
+        PoolAutoscaler poolAutoscaler = autoscaler;
+
+        if (poolAutoscaler != null && poolAutoscaler.hasWaitingRequests())
+            return null;
+
+        return AVAILABLE_INSTANCES.poll();
+    }
+
+    private static RuntimeException unwrap(Throwable throwable) {
+        if (throwable instanceof RuntimeException)
+            return (RuntimeException) throwable;
+
+        return new TimeoutException(throwable);
+    }
+
+    /**
+     * Generates a request on the given browser instance (or an acquired one if null) and returns the translation if succeeded.
+     * The acquired future, if not null, is completed once the request has its browser instance.
+     * <p></p>
+     * Once the cancelled flag is set, the request is aborted with a {@link CancellationException}.
+     * With adaptive timeouts, the timeout starts once a browser instance is acquired,
+     * so starting a browser instance is not limited by a short adaptive timeout.
+     */
+    private String getTranslation(String text, SourceLanguage from, TargetLanguage to, int attempt, WebDriver driver,
+                                  CompletableFuture<Void> acquired, TranslationListener listener,
+                                  AtomicBoolean cancelled) throws TimeoutException, CancellationException {
+        long timeoutMillisEnd = System.currentTimeMillis() + configuration.getTimeout().toMillis();
+
+        if (driver == null) {
+            if (cancelled.get())
+                throw new CancellationException("Translation was cancelled");
+
+            driver = acquireDriver(timeoutMillisEnd, cancelled);
+        }
+
+        if (acquired != null) {
+            acquired.complete(null);
+        }
+
+        // Latencies exclude the acquisition, which may include starting a browser instance
+        AdaptiveTimeouts adaptiveTimeouts = configuration.getAdaptiveTimeouts();
+        long startMillis = System.currentTimeMillis();
+
+        if (adaptiveTimeouts != null) {
+            timeoutMillisEnd = startMillis
+                    + adaptiveTimeouts.getTimeout(text.length(), from, to, attempt, configuration.getTimeout()).toMillis();
+        }
+
+        DriverStats stats = DRIVER_STATS.get(driver);
+
+        if (stats != null) {
+            stats.jobs.incrementAndGet();
+        }
+
+        try {
+            if (cancelled.get())
+                throw new CancellationException("Translation was cancelled");
+
             // Source language button
             driver.findElements(By.className("lmt__language_select__active")).get(0).click();
             By srcButtonBy = By.xpath("//button[@dl-test='" + from.getAttributeValue() + "']");
@@ -169,13 +316,23 @@ class DeepLTranslatorBase {
             WebDriverWait waitTarget = new WebDriverWait(driver, Duration.ofMillis(timeoutMillisEnd - System.currentTimeMillis()));
             waitTarget.until(ExpectedConditions.visibilityOfElementLocated(targetButtonBy));
             driver.findElement(targetButtonBy).click();
-        }  catch (TimeoutException e) {
+        }  catch (TimeoutException | CancellationException e) {
             AVAILABLE_INSTANCES.offer(driver);
             throw e;
+        } catch (WebDriverException e) {
+            if (isCrashed(driver, e)) {
+                quarantine(driver);
+                throw new BrowserCrashedException(e);
+            }
+
+            // An error of the site, e.g. a missing element, the browser instance is cleaned up and reused
+            WebDriver finalDriver = driver;
+            CLEANUP_EXECUTOR.submit(() -> cleanUp(finalDriver));
+            throw e;
         }
 
         String result = null;
-        TimeoutException timeoutException = null;
+        RuntimeException exception = null;
         By targetTextBy = By.id("target-dummydiv");
 
         try {
@@ -185,62 +342,218 @@ class DeepLTranslatorBase {
             // Target text
             WebDriverWait waitText = new WebDriverWait(driver, Duration.ofMillis(timeoutMillisEnd - System.currentTimeMillis()));
             waitText.pollingEvery(Duration.ofMillis(100));
-            ExpectedCondition<Boolean> textCondition;
-
-            if (text.contains("[...]")) {
-                textCondition = ExpectedConditions.and(
-                        DriverWaitUtils.attributeNotBlank(targetTextBy, "innerHTML"),
-                        DriverWaitUtils.attributeNotChanged(targetTextBy, "innerHTML", Duration.ofMillis(1000))
-                );
-            } else {
-                textCondition = ExpectedConditions.and(
-                        DriverWaitUtils.attributeNotBlank(targetTextBy, "innerHTML"),
-                        DriverWaitUtils.attributeNotContains(targetTextBy, "innerHTML", "[...]"),
-                        DriverWaitUtils.attributeNotChanged(targetTextBy, "innerHTML", Duration.ofMillis(1000))
-                );
+            List<ExpectedCondition<?>> textConditions = new ArrayList<>();
+            textConditions.add(DriverWaitUtils.notCancelled(cancelled));
+
+            if (listener != null) {
+                textConditions.add(DriverWaitUtils.attributeChangeListener(targetTextBy, "innerHTML",
+                        partial -> listener.onPartialTranslation(postProcess(partial))));
+            }
+
+            textConditions.add(DriverWaitUtils.attributeNotBlank(targetTextBy, "innerHTML"));
+
+            if (!text.contains("[...]")) {
+                textConditions.add(DriverWaitUtils.attributeNotContains(targetTextBy, "innerHTML", "[...]"));
             }
 
+            textConditions.add(DriverWaitUtils.attributeNotChanged(targetTextBy, "innerHTML", Duration.ofMillis(1000)));
+            ExpectedCondition<Boolean> textCondition = ExpectedConditions.and(textConditions.toArray(new ExpectedCondition<?>[0]));
+
             waitText.until(textCondition);
             result = driver.findElement(targetTextBy).getAttribute("innerHTML");
-        } catch (TimeoutException e) {
-            timeoutException = e;
+        } catch (TimeoutException | CancellationException e) {
+            exception = e;
+        } catch (WebDriverException e) {
+            if (isCrashed(driver, e)) {
+                quarantine(driver);
+                throw new BrowserCrashedException(e);
+            }
+
+            exception = e;
+        } catch (RuntimeException e) {
+            // Thrown by the listener, the browser instance is cleaned up before it is rethrown
+            exception = e;
         }
 
         WebDriver finalDriver = driver;
+        CLEANUP_EXECUTOR.submit(() -> cleanUp(finalDriver));
+
+        // Retries have longer timeouts, only first attempts are comparable
+        if (adaptiveTimeouts != null && attempt == 0) {
+            if (exception == null) {
+                adaptiveTimeouts.record(text.length(), from, to, System.currentTimeMillis() - startMillis);
+            } else if (exception instanceof TimeoutException) {
+                adaptiveTimeouts.recordTimeout(text.length(), from, to);
+            }
+        }
 
-        CLEANUP_EXECUTOR.submit(() -> {
-            By buttonClearBy = By.id("translator-source-clear-button");
-            By sourceText = By.id("source-dummydiv");
+        if (exception != null)
+            throw exception;
+
+        LATENCIES.record(text.length(), from, to, System.currentTimeMillis() - startMillis);
+
+        return postProcess(result);
+    }
+
+    /**
+     * Returns an available browser instance. Without autoscaling, a new one is started if none is available,
+     * otherwise it waits until the autoscaler provides one or the request is cancelled.
+     */
+    private static WebDriver acquireDriver(long timeoutMillisEnd, AtomicBoolean cancelled) throws TimeoutException, CancellationException {
+        WebDriver driver = AVAILABLE_INSTANCES.poll();
+
+        if (driver != null)
+            return driver;
+
+        PoolAutoscaler poolAutoscaler = autoscaler;
+
+        if (poolAutoscaler == null)
+            return newTranslatorDriver(Duration.ofMillis(timeoutMillisEnd - System.currentTimeMillis()));
+
+        driver = poolAutoscaler.awaitDriver(timeoutMillisEnd, cancelled);
+
+        if (driver == null && cancelled.get())
+            throw new CancellationException("Translation was cancelled");
+
+        if (driver == null)
+            throw new TimeoutException("No browser instance became available");
+
+        return driver;
+    }
+
+    /**
+     * Clears the input field and makes the browser instance available again,
+     * unless it has to be recycled or crashed. If the input field can't be cleared, the site is loaded again.
+     */
+    private void cleanUp(WebDriver driver) {
+        By buttonClearBy = By.id("translator-source-clear-button");
+        By sourceText = By.id("source-dummydiv");
+        By targetTextBy = By.id("target-dummydiv");
 
+        try {
             try {
-                finalDriver.findElement(buttonClearBy).click();
+                driver.findElement(buttonClearBy).click();
             } catch (NoSuchElementException ignored) {}
 
-            WebDriverWait waitCleared = new WebDriverWait(finalDriver, Duration.ofSeconds(10));
+            WebDriverWait waitCleared = new WebDriverWait(driver, Duration.ofSeconds(10));
+            waitCleared.until(ExpectedConditions.and(
+                    DriverWaitUtils.attributeBlank(sourceText, "innerHTML"),
+                    DriverWaitUtils.attributeBlank(targetTextBy, "innerHTML")
+            ));
+        } catch (WebDriverException e) {
+            if (isCrashed(driver, e) || !reload(driver)) {
+                quarantine(driver);
+                return;
+            }
+        }
 
-            try {
-                waitCleared.until(ExpectedConditions.and(
-                        DriverWaitUtils.attributeBlank(sourceText, "innerHTML"),
-                        DriverWaitUtils.attributeBlank(targetTextBy, "innerHTML")
-                ));
-                AVAILABLE_INSTANCES.offer(finalDriver);
-            } catch (TimeoutException e) {
-                GLOBAL_INSTANCES.remove(finalDriver);
-                finalDriver.close();
+        if (isExpired(driver)) {
+            recycle(driver);
+        } else {
+            DriverStats stats = DRIVER_STATS.get(driver);
+
+            if (stats != null) {
+                stats.lastUsedMillis = System.currentTimeMillis();
             }
-        });
 
-        if (timeoutException != null)
-            throw timeoutException;
+            AVAILABLE_INSTANCES.offer(driver);
+        }
+    }
 
-        // Post-processing
-        if(result != null && configuration.isPostProcessingEnabled()) {
-            result = result
-                    .trim()
-                    .replaceAll("\\s{2,}", " ");
+    /**
+     * Whether the exception was caused by a browser instance which is gone,
+     * as opposed to an error of the site like a missing or covered element.
+     * If the exception doesn't tell, the browser instance is asked for its window.
+     */
+    private static boolean isCrashed(WebDriver driver, WebDriverException e) {
+        if (e instanceof NoSuchSessionException || e instanceof UnreachableBrowserException)
+            return true;
+
+        try {
+            driver.getWindowHandle();
+            return false;
+        } catch (WebDriverException probe) {
+            return true;
         }
+    }
 
-        return result;
+    /**
+     * Loads the DeepL site again, so an input field which couldn't be cleared is empty.
+     *
+     * @return false if the site couldn't be loaded
+     */
+    private boolean reload(WebDriver driver) {
+        try {
+            driver.manage().timeouts().pageLoadTimeout(configuration.getTimeout());
+            driver.get("https://www.deepl.com/translator");
+            ((JavascriptExecutor) driver).executeScript(DISABLE_ANIMATIONS_SCRIPT);
+            return true;
+        } catch (WebDriverException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Whether the browser instance exceeded a limit of the {@link DriverRecyclingPolicy}.
+     */
+    private boolean isExpired(WebDriver driver) {
+        DriverRecyclingPolicy policy = configuration.getDriverRecyclingPolicy();
+        DriverStats stats = DRIVER_STATS.get(driver);
+
+        if (policy == null || stats == null)
+            return false;
+
+        int jobs = stats.jobs.get();
+
+        if (policy.isExpired(jobs, System.currentTimeMillis() - stats.createdMillis))
+            return true;
+
+        return policy.isJsHeapCheckDue(jobs) && getJsHeapSize(driver) > policy.getMaxJsHeapSize();
+    }
+
+    /**
+     * Starts a replacement for the browser instance, makes it available and quits the old one afterwards.
+     */
+    private void recycle(WebDriver driver) {
+        try {
+            AVAILABLE_INSTANCES.offer(newTranslatorDriver(configuration.getTimeout()));
+        } catch (WebDriverException ignored) {
+            // A new browser instance will be started on demand
+        } finally {
+            quarantine(driver);
+        }
+    }
+
+    /**
+     * Returns the used JavaScript heap size in bytes or -1 if it couldn't be read.
+     */
+    private static long getJsHeapSize(WebDriver driver) {
+        try {
+            Map<String, Object> response = ((ChromeDriver) driver).executeCdpCommand("Performance.getMetrics", Collections.emptyMap());
+            Object metrics = response.get("metrics");
+
+            if (metrics instanceof List) {
+                for (Object metric : (List<?>) metrics) {
+                    Map<?, ?> entry = (Map<?, ?>) metric;
+
+                    if ("JSHeapUsedSize".equals(entry.get("name")))
+                        return ((Number) entry.get("value")).longValue();
+                }
+            }
+        } catch (WebDriverException | ClassCastException ignored) {}
+
+        return -1;
+    }
+
+    /**
+     * Applies the post-processors if post-processing is enabled.
+     */
+    private String postProcess(String translation) {
+        if(translation != null && configuration.isPostProcessingEnabled()) {
+            return PostProcessors.apply(translation, configuration.getPostProcessors());
+        }
+
+        return translation;
     }
 
     /**
@@ -250,6 +563,59 @@ class DeepLTranslatorBase {
         return configuration;
     }
 
+    /**
+     * Replaces the autoscaler of the browser pool, null to disable autoscaling.
+     */
+    static synchronized void setAutoscaler(AutoscalingPolicy policy) {
+        if (autoscaler != null) {
+            autoscaler.shutdown();
+        }
+
+        autoscaler = policy == null ? null : new PoolAutoscaler(policy, AVAILABLE_INSTANCES, GLOBAL_INSTANCES,
+                DeepLTranslatorBase::newTranslatorDriver, DeepLTranslatorBase::quarantine, driver -> {
+                    DriverStats stats = DRIVER_STATS.get(driver);
+                    return stats != null ? stats.lastUsedMillis : System.currentTimeMillis();
+                });
+    }
+
+    /**
+     * Creates a new browser instance with the DeepL site loaded.
+     */
+    private static WebDriver newTranslatorDriver(Duration pageLoadTimeout) throws TimeoutException {
+        ChromeDriver driver = newWebDriver();
+        GLOBAL_INSTANCES.add(driver);
+        DRIVER_STATS.put(driver, new DriverStats());
+
+        try {
+            driver.manage().timeouts().pageLoadTimeout(pageLoadTimeout);
+            driver.get("https://www.deepl.com/translator");
+            driver.executeScript(DISABLE_ANIMATIONS_SCRIPT);
+            driver.executeCdpCommand("Performance.enable", Collections.emptyMap());
+        } catch (TimeoutException e) {
+            quarantine(driver);
+            throw e;
+        } catch (WebDriverException e) {
+            quarantine(driver);
+            throw new BrowserCrashedException(e);
+        }
+
+        return driver;
+    }
+
+    /**
+     * Removes a crashed or retired browser instance from all pools and quits it in the background.
+     */
+    private static void quarantine(WebDriver driver) {
+        GLOBAL_INSTANCES.remove(driver);
+        DRIVER_STATS.remove(driver);
+
+        CLEANUP_EXECUTOR.submit(() -> {
+            try {
+                driver.quit();
+            } catch (WebDriverException ignored) {}
+        });
+    }
+
     /**
      * Create new WebDriver instance.
      */
@@ -276,4 +642,15 @@ class DeepLTranslatorBase {
         return driver;
     }
 
+    /**
+     * Age and usage of a browser instance.
+     */
+    private static class DriverStats {
+
+        private final long createdMillis = System.currentTimeMillis();
+        private final AtomicInteger jobs = new AtomicInteger();
+        private volatile long lastUsedMillis = createdMillis;
+
+    }
+
 }
@@ -0,0 +1,150 @@
+package de.linus.deepltranslator;
+
+import java.time.Duration;
+
+/**
+ * Decides when a browser instance is replaced with a new one.
+ * <p></p>
+ * Long-running browser instances leak memory and become slower over time.
+ * A browser instance which exceeds one of the limits is replaced after its current job:
+ * The replacement is started in the background and added to the pool before the old instance quits.
+ * <p></p>
+ * By default, browser instances are not recycled ({@link DriverRecyclingPolicy#DISABLED}).
+ * The defaults of the {@link DriverRecyclingPolicy.Builder} suit long-running applications.
+ *
+ * @see DeepLConfiguration.Builder#setDriverRecyclingPolicy(DriverRecyclingPolicy)
+ */
+public class DriverRecyclingPolicy {
+
+    /**
+     * Browser instances are never recycled.
+     */
+    public static final DriverRecyclingPolicy DISABLED = new DriverRecyclingPolicy(0, null, 0);
+
+    /**
+     * The JavaScript heap size is read after every this many jobs.
+     */
+    static final int JS_HEAP_CHECK_INTERVAL = 20;
+
+    /**
+     * The maximum number of translations per browser instance, 0 for unlimited.
+     * <p></p>
+     * Default value is 500.
+     */
+    private final int maxJobs;
+
+    /**
+     * The maximum age of a browser instance, null for unlimited.
+     * <p></p>
+     * Default duration is 1 hour.
+     */
+    private final Duration maxAge;
+
+    /**
+     * The maximum size of the used JavaScript heap in bytes, read via the Chrome DevTools Protocol
+     * every {@link DriverRecyclingPolicy#JS_HEAP_CHECK_INTERVAL} jobs, 0 for unlimited.
+     * <p></p>
+     * Default value is 256 MiB.
+     */
+    private final long maxJsHeapSize;
+
+    private DriverRecyclingPolicy(int maxJobs, Duration maxAge, long maxJsHeapSize) {
+        this.maxJobs = maxJobs;
+        this.maxAge = maxAge;
+        this.maxJsHeapSize = maxJsHeapSize;
+    }
+
+    /**
+     * The maximum number of translations per browser instance, 0 for unlimited.
+     * <p></p>
+     * Default value is 500.
+     */
+    public int getMaxJobs() {
+        return maxJobs;
+    }
+
+    /**
+     * The maximum age of a browser instance, null for unlimited.
+     * <p></p>
+     * Default duration is 1 hour.
+     */
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * The maximum size of the used JavaScript heap in bytes, read via the Chrome DevTools Protocol, 0 for unlimited.
+     * <p></p>
+     * Default value is 256 MiB.
+     */
+    public long getMaxJsHeapSize() {
+        return maxJsHeapSize;
+    }
+
+    /**
+     * Whether a browser instance exceeded the job or age limit.
+     */
+    boolean isExpired(int jobs, long ageMillis) {
+        return (maxJobs > 0 && jobs >= maxJobs) || (maxAge != null && ageMillis >= maxAge.toMillis());
+    }
+
+    /**
+     * Whether the JavaScript heap size should be read after the given number of jobs.
+     * Reading it takes a round trip to the browser, so it is only read every {@link DriverRecyclingPolicy#JS_HEAP_CHECK_INTERVAL} jobs.
+     */
+    boolean isJsHeapCheckDue(int jobs) {
+        return maxJsHeapSize > 0 && jobs > 0 && jobs % JS_HEAP_CHECK_INTERVAL == 0;
+    }
+
+    public static class Builder {
+
+        private int maxJobs;
+        private Duration maxAge;
+        private long maxJsHeapSize;
+
+        public Builder() {
+            maxJobs = 500;
+            maxAge = Duration.ofHours(1);
+            maxJsHeapSize = 256L * 1024 * 1024;
+        }
+
+        /**
+         * The maximum number of translations per browser instance, 0 for unlimited.
+         * <p></p>
+         * Default value is 500.
+         */
+        public Builder setMaxJobs(int maxJobs) {
+            this.maxJobs = maxJobs;
+            return this;
+        }
+
+        /**
+         * The maximum age of a browser instance, null for unlimited.
+         * <p></p>
+         * Default duration is 1 hour.
+         */
+        public Builder setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        /**
+         * The maximum size of the used JavaScript heap in bytes, read via the Chrome DevTools Protocol, 0 for unlimited.
+         * <p></p>
+         * Default value is 256 MiB.
+         */
+        public Builder setMaxJsHeapSize(long maxJsHeapSize) {
+            this.maxJsHeapSize = maxJsHeapSize;
+            return this;
+        }
+
+        /**
+         * Builds the policy.
+         */
+        public DriverRecyclingPolicy build() {
+            return new DriverRecyclingPolicy(maxJobs, maxAge, maxJsHeapSize);
+        }
+
+    }
+
+}
@@ -5,6 +5,9 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 
 import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 public class DriverWaitUtils {
 
@@ -95,4 +98,50 @@ public class DriverWaitUtils {
         };
     }
 
+    /**
+     * Always true, but aborts the wait with a {@link CancellationException} once the flag is set.
+     */
+    static ExpectedCondition<Boolean> notCancelled(AtomicBoolean cancelled) {
+        return new ExpectedCondition<Boolean>() {
+            @Override
+            public Boolean apply(WebDriver driver) {
+                if (cancelled.get())
+                    throw new CancellationException("Translation was cancelled");
+
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                return "translation to not be cancelled.";
+            }
+        };
+    }
+
+    /**
+     * Always true, but passes the attribute's value to the listener each time it changed and is not blank.
+     */
+    static ExpectedCondition<Boolean> attributeChangeListener(By locator, String attribute, Consumer<String> listener) {
+        return new ExpectedCondition<Boolean>() {
+            private String lastValue;
+
+            @Override
+            public Boolean apply(WebDriver driver) {
+                String currentValue = driver.findElement(locator).getAttribute(attribute);
+
+                if (!currentValue.trim().isEmpty() && !currentValue.equals(lastValue)) {
+                    lastValue = currentValue;
+                    listener.accept(currentValue);
+                }
+
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                return String.format("value found by %s to be passed to the listener.", locator);
+            }
+        };
+    }
+
 }
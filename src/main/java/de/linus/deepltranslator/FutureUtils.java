@@ -0,0 +1,35 @@
+package de.linus.deepltranslator;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class FutureUtils {
+
+    private FutureUtils() {}
+
+    /**
+     * Completes with the first successful result of the futures,
+     * or with the failure of the last one if all of them fail.
+     * <p></p>
+     * Used for hedged requests, where the faster of two identical requests wins.
+     */
+    static <T> CompletableFuture<T> firstSuccessful(List<CompletableFuture<T>> futures) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+
+        for (CompletableFuture<T> future : futures) {
+            future.whenComplete((value, ex) -> {
+                if (ex == null) {
+                    result.complete(value);
+                } else if (failures.incrementAndGet() == futures.size()) {
+                    result.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                }
+            });
+        }
+
+        return result;
+    }
+
+}
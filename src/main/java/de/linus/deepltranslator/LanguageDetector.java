@@ -0,0 +1,360 @@
+package de.linus.deepltranslator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Detects the language of a text in-process, so {@link SourceLanguage#AUTO_DETECT} can be resolved before translating.
+ * <p></p>
+ * Chinese, Greek, Japanese and Korean are detected by their script.
+ * All other languages are detected with character n-gram (1 to 3 characters) profiles,
+ * which are built from the sample texts in {@code language-profiles.txt}.
+ * <p></p>
+ * The confidence of an n-gram detection grows with the margin between the two most likely languages:
+ * the difference of their log-likelihoods per n-gram. Closely related languages need a larger margin.
+ *
+ * @see DeepLConfiguration#isLanguageDetectionEnabled()
+ */
+public class LanguageDetector {
+
+    private static final String PROFILES_RESOURCE = "language-profiles.txt";
+
+    /**
+     * Texts are only analyzed up to this length.
+     */
+    private static final int MAX_ANALYZED_LENGTH = 1000;
+
+    /**
+     * Less letters than this are not enough for a detection.
+     */
+    private static final int MIN_LETTERS = 8;
+
+    /**
+     * Less n-grams than this are not enough for a detection by n-grams.
+     */
+    private static final int MIN_GRAMS = 40;
+
+    /**
+     * The margin (log-likelihood difference per n-gram) at which the confidence is 1 - 1/e (0.63).
+     * A confidence of 0.95 needs three times this margin.
+     */
+    private static final double MARGIN_SCALE = 0.075;
+
+    /**
+     * Languages which are hard to tell apart with short texts.
+     * If the two most likely languages belong to the same group, the margin counts only half.
+     */
+    private static final List<Set<SourceLanguage>> CLOSE_LANGUAGES = Arrays.asList(
+            EnumSet.of(SourceLanguage.DANISH, SourceLanguage.NORWEGIAN, SourceLanguage.SWEDISH),
+            EnumSet.of(SourceLanguage.CZECH, SourceLanguage.SLOVAK),
+            EnumSet.of(SourceLanguage.SPANISH, SourceLanguage.PORTUGUESE),
+            EnumSet.of(SourceLanguage.RUSSIAN, SourceLanguage.UKRAINIAN, SourceLanguage.BULGARIAN));
+
+    /**
+     * Additive smoothing of the n-gram probabilities.
+     */
+    private static final double SMOOTHING = 0.5;
+
+    private static volatile LanguageDetector defaultInstance;
+
+    private final List<SourceLanguage> latinLanguages = new ArrayList<>();
+    private final List<SourceLanguage> cyrillicLanguages = new ArrayList<>();
+
+    /**
+     * Log-probability of each n-gram per language, indexed by {@link SourceLanguage#ordinal()}.
+     */
+    private final Map<String, double[]> logProbabilities = new HashMap<>();
+
+    /**
+     * Log-probability of an unknown n-gram per language, indexed by {@link SourceLanguage#ordinal()}.
+     */
+    private final double[] unknownLogProbabilities = new double[SourceLanguage.values().length];
+
+    private LanguageDetector(Map<SourceLanguage, String> samples) {
+        Map<SourceLanguage, Map<String, Integer>> counts = new EnumMap<>(SourceLanguage.class);
+        Map<SourceLanguage, Integer> totals = new EnumMap<>(SourceLanguage.class);
+
+        for (Map.Entry<SourceLanguage, String> sample : samples.entrySet()) {
+            Map<String, Integer> languageCounts = new HashMap<>();
+            int total = 0;
+
+            for (String gram : nGrams(normalize(sample.getValue()))) {
+                languageCounts.merge(gram, 1, Integer::sum);
+                total++;
+            }
+
+            counts.put(sample.getKey(), languageCounts);
+            totals.put(sample.getKey(), total);
+
+            if (isCyrillic(sample.getValue())) {
+                cyrillicLanguages.add(sample.getKey());
+            } else {
+                latinLanguages.add(sample.getKey());
+            }
+        }
+
+        int vocabulary = 0;
+
+        for (Map<String, Integer> languageCounts : counts.values()) {
+            for (String gram : languageCounts.keySet()) {
+                if (!logProbabilities.containsKey(gram)) {
+                    logProbabilities.put(gram, new double[SourceLanguage.values().length]);
+                    vocabulary++;
+                }
+            }
+        }
+
+        for (SourceLanguage language : counts.keySet()) {
+            Map<String, Integer> languageCounts = counts.get(language);
+            double denominator = totals.get(language) + SMOOTHING * vocabulary;
+
+            for (Map.Entry<String, double[]> entry : logProbabilities.entrySet()) {
+                int count = languageCounts.getOrDefault(entry.getKey(), 0);
+                entry.getValue()[language.ordinal()] = Math.log((count + SMOOTHING) / denominator);
+            }
+
+            unknownLogProbabilities[language.ordinal()] = Math.log(SMOOTHING / denominator);
+        }
+    }
+
+    /**
+     * Returns the detector with the built-in language profiles.
+     */
+    public static LanguageDetector getDefault() {
+        LanguageDetector detector = defaultInstance;
+
+        if (detector == null) {
+            synchronized (LanguageDetector.class) {
+                detector = defaultInstance;
+
+                if (detector == null) {
+                    detector = new LanguageDetector(loadSamples());
+                    defaultInstance = detector;
+                }
+            }
+        }
+
+        return detector;
+    }
+
+    /**
+     * Detects the language of the text.
+     *
+     * @param text the text
+     * @param minConfidence the minimum confidence (0-1) of the detection
+     * @return the detected language or an empty optional if the confidence is too low
+     */
+    public Optional<SourceLanguage> detect(String text, double minConfidence) {
+        if (text == null)
+            return Optional.empty();
+
+        if (text.length() > MAX_ANALYZED_LENGTH) {
+            text = text.substring(0, MAX_ANALYZED_LENGTH);
+        }
+
+        // Scripts
+        int letters = 0, latin = 0, cyrillic = 0, greek = 0, hangul = 0, kana = 0, han = 0;
+
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            if (!Character.isLetter(codePoint))
+                continue;
+
+            letters++;
+
+            switch (Character.UnicodeScript.of(codePoint)) {
+                case LATIN: latin++; break;
+                case CYRILLIC: cyrillic++; break;
+                case GREEK: greek++; break;
+                case HANGUL: hangul++; break;
+                case HIRAGANA: case KATAKANA: kana++; break;
+                case HAN: han++; break;
+                default: break;
+            }
+        }
+
+        if (letters == 0)
+            return Optional.empty();
+
+        int cjk = hangul + kana + han;
+
+        if (cjk * 2 > letters) {
+            // Japanese uses Han characters as well, but always along with kana
+            if (hangul > kana + han)
+                return withConfidence(SourceLanguage.KOREAN, (double) hangul / letters, minConfidence);
+            if (kana * 10 >= kana + han)
+                return withConfidence(SourceLanguage.JAPANESE, (double) (kana + han) / letters, minConfidence);
+
+            return withConfidence(SourceLanguage.CHINESE, (double) han / letters, minConfidence);
+        }
+
+        if (letters < MIN_LETTERS)
+            return Optional.empty();
+
+        if (greek * 2 > letters)
+            return withConfidence(SourceLanguage.GREEK, (double) greek / letters, minConfidence);
+
+        List<SourceLanguage> candidates;
+        double scriptShare;
+
+        if (cyrillic * 2 > letters) {
+            candidates = cyrillicLanguages;
+            scriptShare = (double) cyrillic / letters;
+        } else {
+            candidates = latinLanguages;
+            scriptShare = (double) latin / letters;
+        }
+
+        // N-grams
+        List<String> grams = nGrams(normalize(text));
+
+        if (grams.size() < MIN_GRAMS)
+            return Optional.empty();
+
+        double[] scores = new double[candidates.size()];
+
+        for (String gram : grams) {
+            double[] gramLogProbabilities = logProbabilities.get(gram);
+
+            for (int i = 0; i < candidates.size(); i++) {
+                int ordinal = candidates.get(i).ordinal();
+                scores[i] += gramLogProbabilities != null ? gramLogProbabilities[ordinal] : unknownLogProbabilities[ordinal];
+            }
+        }
+
+        // Margin between the best and the second best language
+        int best = 0;
+        int second = -1;
+
+        for (int i = 1; i < scores.length; i++) {
+            if (scores[i] > scores[best]) {
+                second = best;
+                best = i;
+            } else if (second < 0 || scores[i] > scores[second]) {
+                second = i;
+            }
+        }
+
+        if (second < 0)
+            return withConfidence(candidates.get(best), scriptShare, minConfidence);
+
+        double margin = (scores[best] - scores[second]) / grams.size();
+
+        if (areClose(candidates.get(best), candidates.get(second))) {
+            margin /= 2;
+        }
+
+        double confidence = scriptShare * (1 - Math.exp(-margin / MARGIN_SCALE));
+        return withConfidence(candidates.get(best), confidence, minConfidence);
+    }
+
+    private static boolean areClose(SourceLanguage language, SourceLanguage other) {
+        for (Set<SourceLanguage> languages : CLOSE_LANGUAGES) {
+            if (languages.contains(language) && languages.contains(other))
+                return true;
+        }
+
+        return false;
+    }
+
+    private static Optional<SourceLanguage> withConfidence(SourceLanguage language, double confidence, double minConfidence) {
+        return confidence >= minConfidence ? Optional.of(language) : Optional.empty();
+    }
+
+    /**
+     * Lower case letters, every other sequence of characters is replaced with a single space.
+     */
+    private static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length() + 2).append(' ');
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (Character.isLetter(c)) {
+                normalized.append(Character.toLowerCase(c));
+            } else if (normalized.charAt(normalized.length() - 1) != ' ') {
+                normalized.append(' ');
+            }
+        }
+
+        if (normalized.charAt(normalized.length() - 1) != ' ') {
+            normalized.append(' ');
+        }
+
+        return normalized.toString();
+    }
+
+    /**
+     * All n-grams with 1 to 3 characters, except the single space.
+     */
+    private static List<String> nGrams(String normalized) {
+        List<String> grams = new ArrayList<>(normalized.length() * 3);
+
+        for (int i = 0; i < normalized.length(); i++) {
+            for (int n = 1; n <= 3 && i + n <= normalized.length(); n++) {
+                String gram = normalized.substring(i, i + n);
+
+                if (n == 1 && gram.charAt(0) == ' ')
+                    continue;
+
+                grams.add(gram);
+            }
+        }
+
+        return grams;
+    }
+
+    private static boolean isCyrillic(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isLetter(text.charAt(i)))
+                return Character.UnicodeScript.of(text.charAt(i)) == Character.UnicodeScript.CYRILLIC;
+        }
+
+        return false;
+    }
+
+    private static Map<SourceLanguage, String> loadSamples() {
+        Map<SourceLanguage, StringBuilder> samples = new EnumMap<>(SourceLanguage.class);
+
+        try (InputStream input = LanguageDetector.class.getResourceAsStream(PROFILES_RESOURCE)) {
+            if (input == null)
+                throw new IllegalStateException("Missing resource " + PROFILES_RESOURCE);
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('\t');
+
+                if (line.startsWith("#") || separator < 0)
+                    continue;
+
+                SourceLanguage language = SourceLanguage.getLanguage(line.substring(0, separator))
+                        .orElseThrow(() -> new IllegalStateException("Unknown language in " + PROFILES_RESOURCE));
+                samples.computeIfAbsent(language, key -> new StringBuilder()).append(line.substring(separator + 1)).append(' ');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Map<SourceLanguage, String> result = new EnumMap<>(SourceLanguage.class);
+        samples.forEach((language, sample) -> result.put(language, sample.toString()));
+        return result;
+    }
+
+}
@@ -0,0 +1,101 @@
+package de.linus.deepltranslator;
+
+/**
+ * Online histogram of latencies with logarithmic buckets.
+ * <p></p>
+ * Timed out requests are counted separately, since only a lower bound of their latency is known (right-censored):
+ * they are treated as slower than all recorded latencies. A percentile which falls among them is unknown.
+ * <p></p>
+ * Once the histogram holds {@link LatencyHistogram#MAX_WEIGHT} samples, all counts are halved,
+ * so older samples fade out and the histogram follows changes of the latency.
+ */
+class LatencyHistogram {
+
+    /**
+     * Percentiles are only calculated if there are at least this many samples.
+     */
+    static final int MIN_SAMPLES = 20;
+
+    private static final double FIRST_BOUND_MILLIS = 50;
+    private static final double BOUND_FACTOR = 1.25;
+    private static final int BUCKETS = 40;
+    private static final double MAX_WEIGHT = 200;
+
+    private final double[] counts = new double[BUCKETS];
+    private double timeouts;
+    private double weight;
+
+    /**
+     * Adds a latency.
+     */
+    synchronized void record(long millis) {
+        fade();
+        counts[bucket(millis)]++;
+        weight++;
+    }
+
+    /**
+     * Adds a timed out request.
+     */
+    synchronized void recordTimeout() {
+        fade();
+        timeouts++;
+        weight++;
+    }
+
+    private void fade() {
+        if (weight >= MAX_WEIGHT) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] /= 2;
+            }
+
+            timeouts /= 2;
+            weight /= 2;
+        }
+    }
+
+    /**
+     * Returns the upper bound of the bucket containing the given percentile (0-100)
+     * or -1 if there are less than {@link LatencyHistogram#MIN_SAMPLES} samples or the percentile is a timed out request.
+     */
+    synchronized long percentile(double percentile) {
+        if (!hasMinSamples())
+            return -1;
+
+        double rank = percentile / 100.0 * weight;
+
+        if (rank > weight - timeouts)
+            return -1;
+
+        double cumulative = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+
+            if (cumulative >= rank && counts[i] > 0)
+                return upperBound(i);
+        }
+
+        return upperBound(counts.length - 1);
+    }
+
+    /**
+     * Whether there are enough samples for percentiles.
+     */
+    synchronized boolean hasMinSamples() {
+        return weight >= MIN_SAMPLES;
+    }
+
+    private static int bucket(long millis) {
+        if (millis <= FIRST_BOUND_MILLIS)
+            return 0;
+
+        int bucket = (int) Math.ceil(Math.log(millis / FIRST_BOUND_MILLIS) / Math.log(BOUND_FACTOR));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        return (long) Math.ceil(FIRST_BOUND_MILLIS * Math.pow(BOUND_FACTOR, bucket));
+    }
+
+}
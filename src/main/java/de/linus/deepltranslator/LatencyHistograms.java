@@ -0,0 +1,82 @@
+package de.linus.deepltranslator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latencies in histograms per text length bucket and language pair, and per text length bucket,
+ * since a long text takes much longer to translate than a short one.
+ * <p></p>
+ * If a language pair has too few samples, the histogram of all language pairs in the same length bucket is used.
+ */
+class LatencyHistograms {
+
+    /**
+     * Upper bounds (inclusive) of the text length buckets.
+     */
+    private static final int[] LENGTH_BUCKETS = {50, 200, 500, 1000, 2000, 5000};
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the latency of a successful request.
+     */
+    void record(int textLength, SourceLanguage from, TargetLanguage to, long millis) {
+        int lengthBucket = lengthBucket(textLength);
+        histograms.computeIfAbsent(key(lengthBucket, from, to), key -> new LatencyHistogram()).record(millis);
+        histograms.computeIfAbsent(key(lengthBucket, null, null), key -> new LatencyHistogram()).record(millis);
+    }
+
+    /**
+     * Adds a timed out request.
+     *
+     * @see LatencyHistogram#recordTimeout()
+     */
+    void recordTimeout(int textLength, SourceLanguage from, TargetLanguage to) {
+        int lengthBucket = lengthBucket(textLength);
+        histograms.computeIfAbsent(key(lengthBucket, from, to), key -> new LatencyHistogram()).recordTimeout();
+        histograms.computeIfAbsent(key(lengthBucket, null, null), key -> new LatencyHistogram()).recordTimeout();
+    }
+
+    /**
+     * Returns the given percentile (0-100) of the latencies of similar requests
+     * or -1 if it is unknown.
+     *
+     * @see LatencyHistogram#percentile(double)
+     */
+    long percentile(int textLength, SourceLanguage from, TargetLanguage to, double percentile) {
+        LatencyHistogram histogram = get(textLength, from, to);
+        return histogram != null ? histogram.percentile(percentile) : -1;
+    }
+
+    /**
+     * Returns the histogram of the language pair, or of the length bucket if the language pair has too few samples.
+     */
+    private LatencyHistogram get(int textLength, SourceLanguage from, TargetLanguage to) {
+        int lengthBucket = lengthBucket(textLength);
+        LatencyHistogram histogram = histograms.get(key(lengthBucket, from, to));
+
+        if (histogram == null || !histogram.hasMinSamples()) {
+            histogram = histograms.get(key(lengthBucket, null, null));
+        }
+
+        return histogram;
+    }
+
+    private static int lengthBucket(int textLength) {
+        for (int i = 0; i < LENGTH_BUCKETS.length; i++) {
+            if (textLength <= LENGTH_BUCKETS[i])
+                return i;
+        }
+
+        return LENGTH_BUCKETS.length;
+    }
+
+    private static String key(int lengthBucket, SourceLanguage from, TargetLanguage to) {
+        if (from == null || to == null)
+            return Integer.toString(lengthBucket);
+
+        return lengthBucket + ":" + from.name() + ":" + to.name();
+    }
+
+}
@@ -0,0 +1,255 @@
+package de.linus.deepltranslator;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Grows and shrinks the browser pool according to an {@link AutoscalingPolicy}.
+ * <p></p>
+ * All scaling decisions are made on a single scheduler thread, which checks the pool periodically
+ * and whenever a request starts waiting. Browser instances are started in the background,
+ * so a waiting request takes the first instance which becomes available.
+ */
+class PoolAutoscaler {
+
+    private static final long TICK_MILLIS = 100;
+
+    /**
+     * Page load timeout of browser instances started by the autoscaler.
+     */
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Weight of the latest hour when the peak demand per hour of the day is updated.
+     */
+    private static final double DEMAND_SMOOTHING = 0.3;
+
+    private final AutoscalingPolicy policy;
+    private final BlockingQueue<WebDriver> available;
+    private final List<WebDriver> instances;
+    private final Function<Duration, WebDriver> driverFactory;
+    private final Consumer<WebDriver> retire;
+    private final ToLongFunction<WebDriver> lastUsedMillis;
+    private final Clock clock;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService starter;
+    private final AtomicInteger starting = new AtomicInteger();
+
+    /**
+     * Start times of the requests waiting for a browser instance, oldest first.
+     */
+    private final ConcurrentLinkedQueue<Long> waiting = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Smoothed peak number of busy and waiting requests per hour of the day, only accessed by the scheduler.
+     */
+    private final double[] hourlyDemand = new double[24];
+    private int currentHour = -1;
+    private int currentPeak;
+
+    /**
+     * @param policy the policy
+     * @param available the idle browser instances
+     * @param instances all browser instances, including the ones which are still starting
+     * @param driverFactory starts a browser instance and registers it in {@code instances}
+     * @param retire quits an idle browser instance and removes it from {@code instances}
+     * @param lastUsedMillis the time a browser instance was made available the last time
+     */
+    PoolAutoscaler(AutoscalingPolicy policy, BlockingQueue<WebDriver> available, List<WebDriver> instances,
+                   Function<Duration, WebDriver> driverFactory, Consumer<WebDriver> retire, ToLongFunction<WebDriver> lastUsedMillis) {
+        this(policy, available, instances, driverFactory, retire, lastUsedMillis, Clock.systemDefaultZone(),
+                Executors.newSingleThreadScheduledExecutor(), Executors.newCachedThreadPool());
+
+        scheduler.scheduleWithFixedDelay(this::tick, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates an autoscaler which only checks the pool when a request starts waiting or {@link #tick()} is called.
+     *
+     * @param clock the time of {@code lastUsedMillis}, waiting requests and the hour of the day
+     * @param scheduler runs the scaling decisions, must be single-threaded
+     * @param starter starts the browser instances
+     */
+    PoolAutoscaler(AutoscalingPolicy policy, BlockingQueue<WebDriver> available, List<WebDriver> instances,
+                   Function<Duration, WebDriver> driverFactory, Consumer<WebDriver> retire, ToLongFunction<WebDriver> lastUsedMillis,
+                   Clock clock, ScheduledExecutorService scheduler, ExecutorService starter) {
+        this.policy = policy;
+        this.available = available;
+        this.instances = instances;
+        this.driverFactory = driverFactory;
+        this.retire = retire;
+        this.lastUsedMillis = lastUsedMillis;
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.starter = starter;
+    }
+
+    /**
+     * Waits for an available browser instance until the given time or until the request is cancelled.
+     *
+     * @return the browser instance or null if none became available in time or the request was cancelled
+     */
+    WebDriver awaitDriver(long timeoutMillisEnd, AtomicBoolean cancelled) {
+        WebDriver driver = available.poll();
+
+        if (driver != null)
+            return driver;
+
+        Long waitingSince = clock.millis();
+        waiting.add(waitingSince);
+
+        try {
+            try {
+                scheduler.execute(this::tick);
+            } catch (RejectedExecutionException e) {
+                // Shut down, but an instance may still be returned to the pool
+            }
+
+            long remainingMillis;
+
+            // Polls in ticks, so a cancelled request stops waiting
+            while (driver == null && !cancelled.get() && (remainingMillis = timeoutMillisEnd - System.currentTimeMillis()) > 0) {
+                driver = available.poll(Math.min(remainingMillis, TICK_MILLIS), TimeUnit.MILLISECONDS);
+            }
+
+            return driver;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            waiting.remove(waitingSince);
+        }
+    }
+
+    /**
+     * Whether a request is waiting for a browser instance.
+     */
+    boolean hasWaitingRequests() {
+        return !waiting.isEmpty();
+    }
+
+    /**
+     * Stops scaling, browser instances are not quit.
+     */
+    void shutdown() {
+        scheduler.shutdownNow();
+        starter.shutdownNow();
+    }
+
+    /**
+     * Checks the pool once, must run on the scheduler.
+     */
+    void tick() {
+        try {
+            scale();
+        } catch (RuntimeException ignored) {
+            // Keep the scheduled task alive
+        }
+    }
+
+    private void scale() {
+        long now = clock.millis();
+        int waitingRequests = waiting.size();
+        Long oldestWaiting = waiting.peek();
+        int idle = available.size();
+        int starting = this.starting.get();
+
+        // Starting instances are counted twice once they are registered, so the estimate errs on the small side
+        int total = instances.size() + starting;
+        int capacity = policy.getCapacity();
+        int target = Math.min(capacity, Math.max(policy.getMinInstances(), predictDemand(Math.max(0, instances.size() - idle) + waitingRequests)));
+
+        int scaleUp = target - total;
+
+        if (waitingRequests > 0) {
+            boolean overloaded = total == 0
+                    || waitingRequests >= policy.getScaleUpQueueDepth()
+                    || (oldestWaiting != null && now - oldestWaiting >= policy.getScaleUpWaitTime().toMillis());
+
+            if (overloaded) {
+                // Idle instances are about to be taken by waiting requests
+                scaleUp = Math.max(scaleUp, waitingRequests - starting - idle);
+            }
+        }
+
+        scaleUp = Math.min(scaleUp, capacity - total);
+
+        for (int i = 0; i < scaleUp; i++) {
+            start();
+        }
+
+        // Quit at most one idle instance per tick
+        if (waitingRequests == 0 && scaleUp <= 0 && total > target) {
+            for (WebDriver driver : available) {
+                if (now - lastUsedMillis.applyAsLong(driver) >= policy.getIdleTimeout().toMillis() && available.remove(driver)) {
+                    retire.accept(driver);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void start() {
+        starting.incrementAndGet();
+
+        try {
+            starter.execute(() -> {
+                try {
+                    available.offer(driverFactory.apply(STARTUP_TIMEOUT));
+                } catch (WebDriverException ignored) {
+                    // Retried on the next tick if still needed
+                } finally {
+                    starting.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            starting.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Records the current demand and returns the learned demand at the end of the pre-start lookahead.
+     */
+    private int predictDemand(int demand) {
+        LocalDateTime now = LocalDateTime.now(clock);
+
+        if (now.getHour() != currentHour) {
+            if (currentHour >= 0) {
+                double previous = hourlyDemand[currentHour];
+                hourlyDemand[currentHour] = previous == 0 ? currentPeak : previous + DEMAND_SMOOTHING * (currentPeak - previous);
+            }
+
+            currentHour = now.getHour();
+            currentPeak = 0;
+        }
+
+        currentPeak = Math.max(currentPeak, demand);
+
+        Duration lookahead = policy.getPrestartLookahead();
+
+        if (lookahead == null)
+            return 0;
+
+        return (int) Math.ceil(hourlyDemand[now.plus(lookahead).getHour()]);
+    }
+
+}
@@ -0,0 +1,52 @@
+package de.linus.deepltranslator;
+
+/**
+ * Transforms a translation after it was read from the DeepL site.
+ * <p></p>
+ * Implementations read the input once and write the result to the output array,
+ * so all post-processors of a configuration can share the same buffers.
+ * If no post-processor changes the translation, it is returned without copying.
+ * <p></p>
+ * Implementations may override {@link PostProcessor#mayChange(String)}, so texts which they wouldn't change are skipped
+ * before they are copied at all.
+ *
+ * @see PostProcessors
+ * @see DeepLConfiguration.Builder#setPostProcessors(PostProcessor...)
+ */
+@FunctionalInterface
+public interface PostProcessor {
+
+    /**
+     * Writes the transformed input to the output.
+     *
+     * @param input the text to transform, must not be modified
+     * @param length the length of the text in the input array
+     * @param output the array to write the result to, with a length of at least {@link PostProcessor#maxOutputLength(int)}
+     * @return the length of the result in the output array,
+     * or -1 if the result equals the input, so the output array doesn't have to be written
+     */
+    int process(char[] input, int length, char[] output);
+
+    /**
+     * The maximum length of the result for an input of the given length.
+     * <p></p>
+     * By default, the result is not longer than the input.
+     */
+    default int maxOutputLength(int length) {
+        return length;
+    }
+
+    /**
+     * A quick check whether the post-processor may change the text, before it is copied to the input array.
+     * Only called if no earlier post-processor changed the text.
+     * <p></p>
+     * By default, every text may be changed.
+     *
+     * @param text the translation
+     * @return false if {@link PostProcessor#process(char[], int, char[])} would certainly return -1
+     */
+    default boolean mayChange(String text) {
+        return true;
+    }
+
+}
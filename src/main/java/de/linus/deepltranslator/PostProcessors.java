@@ -0,0 +1,538 @@
+package de.linus.deepltranslator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Built-in post-processors and the method which runs them.
+ */
+public class PostProcessors {
+
+    /**
+     * Replaces line break tags ({@code <br>}, {@code <br/>}, {@code <br />}) with {@code \n}.
+     * <p></p>
+     * Should run before {@link PostProcessors#DECODE_HTML_ENTITIES},
+     * otherwise an escaped {@code &lt;br&gt;} in the translation would become a line break as well.
+     */
+    public static final PostProcessor PRESERVE_NEWLINES = new BuiltIn(PostProcessors::preserveNewlines);
+
+    /**
+     * Decodes HTML entities, e.g. {@code &amp;}, {@code &lt;}, {@code &nbsp;}, {@code &#39;} or {@code &#x27;}.
+     * Unknown entities are left as they are.
+     */
+    public static final PostProcessor DECODE_HTML_ENTITIES = new BuiltIn(PostProcessors::decodeHtmlEntities);
+
+    /**
+     * Removes leading and trailing whitespace and replaces every whitespace sequence with a single space.
+     */
+    public static final PostProcessor NORMALIZE_WHITESPACE = new BuiltIn(text -> normalizeWhitespace(text, false));
+
+    /**
+     * Like {@link PostProcessors#NORMALIZE_WHITESPACE}, but whitespace sequences which contain line breaks
+     * are replaced with those line breaks, so paragraphs are kept.
+     */
+    public static final PostProcessor NORMALIZE_WHITESPACE_PRESERVE_NEWLINES = new BuiltIn(text -> normalizeWhitespace(text, true));
+
+    /**
+     * The post-processing used by {@link DeepLConfiguration.Builder#setPostProcessing(boolean)}:
+     * Leading and trailing spaces are removed and multiple consecutive spaces are replaced with a single space.
+     */
+    public static final PostProcessor DEFAULT = new BuiltIn(PostProcessors::defaultProcessing);
+
+    /**
+     * Buffers are kept per thread, unless they grew larger than this.
+     */
+    private static final int MAX_RETAINED_LENGTH = 64 * 1024;
+
+    /**
+     * Chars matched by the regex character class {@code \s}, except the space.
+     */
+    private static final char[] REGEX_WHITESPACE = {'\t', '\n', '\u000B', '\f', '\r'};
+
+    /**
+     * All chars matched by {@link PostProcessors#isWhitespace(char)}, except the space.
+     */
+    private static final char[] OTHER_WHITESPACE = otherWhitespace();
+
+    private static final ThreadLocal<char[][]> BUFFERS =
+            ThreadLocal.withInitial(() -> new char[][] {new char[1024], new char[1024]});
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private PostProcessors() {}
+
+    /**
+     * Runs the post-processors one after another.
+     * The built-in post-processors work on the text itself, custom ones on two buffers per thread.
+     * If no post-processor changed the text, the text itself is returned.
+     *
+     * @param text the translation
+     * @param postProcessors the post-processors in order of execution
+     * @return the post-processed translation
+     */
+    public static String apply(String text, List<PostProcessor> postProcessors) {
+        if (text == null || postProcessors.isEmpty())
+            return text;
+
+        char[][] buffers = null;
+        int length = 0;
+        int current = 0;
+        boolean changed = false;
+
+        for (PostProcessor postProcessor : postProcessors) {
+            if (postProcessor instanceof BuiltIn) {
+                if (buffers != null) {
+                    text = toString(text, buffers, current, length, changed);
+                    buffers = null;
+                }
+
+                text = ((BuiltIn) postProcessor).function.apply(text);
+                continue;
+            }
+
+            if (buffers == null) {
+                if (!postProcessor.mayChange(text))
+                    continue;
+
+                buffers = BUFFERS.get();
+                length = text.length();
+                current = 0;
+                changed = false;
+                buffers[current] = ensureLength(buffers[current], length);
+                text.getChars(0, length, buffers[current], 0);
+            }
+
+            int next = current ^ 1;
+            buffers[next] = ensureLength(buffers[next], postProcessor.maxOutputLength(length));
+            int processedLength = postProcessor.process(buffers[current], length, buffers[next]);
+
+            if (processedLength >= 0) {
+                length = processedLength;
+                current = next;
+                changed = true;
+            }
+        }
+
+        return buffers != null ? toString(text, buffers, current, length, changed) : text;
+    }
+
+    /**
+     * @see PostProcessors#apply(String, List)
+     */
+    public static String apply(String text, PostProcessor... postProcessors) {
+        return apply(text, Arrays.asList(postProcessors));
+    }
+
+    /**
+     * Returns the content of the current buffer, or the text if no post-processor changed it,
+     * and drops buffers which grew too large.
+     */
+    private static String toString(String text, char[][] buffers, int current, int length, boolean changed) {
+        String result = changed ? new String(buffers[current], 0, length) : text;
+
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i].length > MAX_RETAINED_LENGTH) {
+                buffers[i] = new char[1024];
+            }
+        }
+
+        return result;
+    }
+
+    private static char[] ensureLength(char[] buffer, int length) {
+        return buffer.length >= length ? buffer : new char[Math.max(length, buffer.length * 2)];
+    }
+
+    /*
+     * The built-in post-processors jump from one possible change to the next with String#indexOf,
+     * which the JVM runs much faster than a loop over the chars, especially on strings which only contain Latin-1 chars.
+     * Searching for a single char is several times faster than searching for a string like two spaces.
+     * The unchanged runs in between are appended at once to a builder per thread,
+     * and the text itself is returned if nothing changed (see PostProcessorsBenchmark).
+     */
+
+    private static String preserveNewlines(String text) {
+        StringBuilder result = null;
+        int copied = 0;
+
+        for (int i = text.indexOf('<'); i >= 0; i = text.indexOf('<', i + 1)) {
+            int end = lineBreakEnd(text, i);
+
+            if (end < 0)
+                continue;
+
+            if (result == null) {
+                result = builder();
+            }
+
+            result.append(text, copied, i).append('\n');
+            copied = end;
+            i = end - 1;
+        }
+
+        return result != null ? build(result.append(text, copied, text.length())) : text;
+    }
+
+    /**
+     * Returns the empty builder of this thread, the built-in post-processors write their result to it.
+     */
+    private static StringBuilder builder() {
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        return builder;
+    }
+
+    /**
+     * Returns the content of the builder and drops it if it grew too large.
+     */
+    private static String build(StringBuilder builder) {
+        String result = builder.toString();
+
+        if (builder.capacity() > MAX_RETAINED_LENGTH) {
+            BUILDER.remove();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the exclusive end of the line break tag starting at the index or -1.
+     */
+    private static int lineBreakEnd(String text, int start) {
+        int length = text.length();
+
+        if (start + 3 >= length || (text.charAt(start + 1) | 0x20) != 'b' || (text.charAt(start + 2) | 0x20) != 'r')
+            return -1;
+
+        int j = start + 3;
+
+        while (j < length && text.charAt(j) == ' ') {
+            j++;
+        }
+
+        if (j < length && text.charAt(j) == '/') {
+            j++;
+        }
+
+        return j < length && text.charAt(j) == '>' ? j + 1 : -1;
+    }
+
+    private static String decodeHtmlEntities(String text) {
+        StringBuilder result = null;
+        int copied = 0;
+        int length = text.length();
+
+        for (int i = text.indexOf('&'); i >= 0; i = text.indexOf('&', i + 1)) {
+            int end = i + 1;
+
+            // Longest entity handled here is "&#x10FFFF;"
+            while (end < length && end - i <= 9 && text.charAt(end) != ';' && text.charAt(end) != '&') {
+                end++;
+            }
+
+            int codePoint = end < length && text.charAt(end) == ';' ? decodeEntity(text, i + 1, end) : -1;
+
+            if (codePoint < 0)
+                continue;
+
+            if (result == null) {
+                result = builder();
+            }
+
+            result.append(text, copied, i).appendCodePoint(codePoint);
+            copied = end + 1;
+            i = end;
+        }
+
+        return result != null ? build(result.append(text, copied, length)) : text;
+    }
+
+    /**
+     * Returns the code point of the entity between the ampersand and the semicolon (both exclusive) or -1.
+     * NUL and surrogates are rejected, they would result in invalid text.
+     */
+    private static int decodeEntity(String text, int start, int end) {
+        if (end - start < 2)
+            return -1;
+
+        if (text.charAt(start) == '#') {
+            boolean hex = (text.charAt(start + 1) | 0x20) == 'x';
+            int radix = hex ? 16 : 10;
+            int digitsStart = hex ? start + 2 : start + 1;
+            int codePoint = 0;
+
+            if (digitsStart == end)
+                return -1;
+
+            for (int i = digitsStart; i < end; i++) {
+                int digit = Character.digit(text.charAt(i), radix);
+
+                if (digit < 0)
+                    return -1;
+
+                codePoint = codePoint * radix + digit;
+            }
+
+            boolean surrogate = codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE;
+            return codePoint > 0 && !surrogate && Character.isValidCodePoint(codePoint) ? codePoint : -1;
+        }
+
+        switch (end - start) {
+            case 2:
+                if (text.startsWith("lt", start)) return '<';
+                if (text.startsWith("gt", start)) return '>';
+                return -1;
+            case 3:
+                return text.startsWith("amp", start) ? '&' : -1;
+            case 4:
+                if (text.startsWith("quot", start)) return '"';
+                if (text.startsWith("apos", start)) return '\'';
+                if (text.startsWith("nbsp", start)) return '\u00A0';
+                return -1;
+            default:
+                return -1;
+        }
+    }
+
+    private static String normalizeWhitespace(String text, boolean preserveNewlines) {
+        int start = 0;
+        int end = text.length();
+
+        while (start < end && isWhitespace(text.charAt(start))) {
+            start++;
+        }
+
+        while (end > start && isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+
+        StringBuilder result = null;
+        int copied = start;
+        Candidates candidates = new Candidates(text, start, OTHER_WHITESPACE);
+
+        // Every whitespace sequence which may change contains two spaces or another whitespace char
+        for (int i = candidates.next(start); i < end; i = candidates.next(i)) {
+            int sequenceStart = i;
+            int sequenceEnd = i + 1;
+            int newlines = 0;
+
+            while (isWhitespace(text.charAt(sequenceStart - 1))) {
+                sequenceStart--;
+            }
+
+            while (isWhitespace(text.charAt(sequenceEnd))) {
+                sequenceEnd++;
+            }
+
+            for (int j = sequenceStart; j < sequenceEnd; j++) {
+                if (text.charAt(j) == '\n') {
+                    newlines++;
+                }
+            }
+
+            i = sequenceEnd;
+            boolean replaceNewlines = preserveNewlines && newlines > 0;
+
+            if (replaceNewlines ? newlines == sequenceEnd - sequenceStart : sequenceEnd - sequenceStart == 1 && text.charAt(sequenceStart) == ' ')
+                continue;
+
+            if (result == null) {
+                result = builder();
+            }
+
+            result.append(text, copied, sequenceStart);
+            copied = sequenceEnd;
+
+            if (replaceNewlines) {
+                for (int n = 0; n < newlines; n++) {
+                    result.append('\n');
+                }
+            } else {
+                result.append(' ');
+            }
+        }
+
+        if (result != null)
+            return build(result.append(text, copied, end));
+
+        return start > 0 || end < text.length() ? text.substring(start, end) : text;
+    }
+
+    /**
+     * Same as {@code text.trim().replaceAll("\\s{2,}", " ")}, without compiling a pattern.
+     */
+    private static String defaultProcessing(String text) {
+        int start = 0;
+        int end = text.length();
+
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        StringBuilder result = null;
+        int copied = start;
+        Candidates candidates = new Candidates(text, start, REGEX_WHITESPACE);
+
+        // Every whitespace sequence of two or more chars contains two spaces or another whitespace char
+        for (int i = candidates.next(start); i < end; i = candidates.next(i)) {
+            int sequenceStart = i;
+            int sequenceEnd = i + 1;
+
+            while (isRegexWhitespace(text.charAt(sequenceStart - 1))) {
+                sequenceStart--;
+            }
+
+            while (isRegexWhitespace(text.charAt(sequenceEnd))) {
+                sequenceEnd++;
+            }
+
+            i = sequenceEnd;
+
+            if (sequenceEnd - sequenceStart < 2)
+                continue;
+
+            if (result == null) {
+                result = builder();
+            }
+
+            result.append(text, copied, sequenceStart).append(' ');
+            copied = sequenceEnd;
+        }
+
+        if (result != null)
+            return build(result.append(text, copied, end));
+
+        return start > 0 || end < text.length() ? text.substring(start, end) : text;
+    }
+
+    private static char[] otherWhitespace() {
+        StringBuilder chars = new StringBuilder();
+
+        for (char c = 0; c < Character.MAX_VALUE; c++) {
+            if (isWhitespace(c) && c != ' ') {
+                chars.append(c);
+            }
+        }
+
+        return chars.toString().toCharArray();
+    }
+
+    /**
+     * Any Unicode whitespace, including the no-break space.
+     */
+    private static boolean isWhitespace(char c) {
+        if (c < 0x80)
+            return c == ' ' || (c >= '\t' && c <= '\r') || (c >= '\u001C' && c <= '\u001F');
+
+        // No other whitespace below U+1680 (OGHAM SPACE MARK)
+        if (c < 0x1680)
+            return c == '\u00A0';
+
+        return Character.isWhitespace(c);
+    }
+
+    /**
+     * Matches the regex character class {@code \s}.
+     */
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Finds the next two spaces or the next of the given whitespace chars.
+     * The next occurrence of each of them is kept, so each one is only searched again once it was passed,
+     * and those which don't occur anymore are dropped.
+     */
+    private static class Candidates {
+
+        private final String text;
+        private final char[] chars;
+        private final int[] next;
+        private int count;
+
+        private Candidates(String text, int from, char[] whitespace) {
+            this.text = text;
+            chars = new char[whitespace.length + 1];
+            next = new int[whitespace.length + 1];
+
+            // The space stands for two spaces, a single one is no candidate
+            add(' ', from);
+
+            for (char c : whitespace) {
+                add(c, from);
+            }
+        }
+
+        private void add(char c, int from) {
+            int index = indexOf(c, from);
+
+            if (index >= 0) {
+                chars[count] = c;
+                next[count++] = index;
+            }
+        }
+
+        /**
+         * Returns the index of the next candidate, starting at the index, or {@link Integer#MAX_VALUE} if there is none.
+         */
+        private int next(int from) {
+            int candidate = Integer.MAX_VALUE;
+            int k = 0;
+
+            while (k < count) {
+                if (next[k] < from) {
+                    next[k] = indexOf(chars[k], from);
+
+                    if (next[k] < 0) {
+                        count--;
+                        chars[k] = chars[count];
+                        next[k] = next[count];
+                        continue;
+                    }
+                }
+
+                candidate = Math.min(candidate, next[k]);
+                k++;
+            }
+
+            return candidate;
+        }
+
+        private int indexOf(char c, int from) {
+            return c == ' ' ? text.indexOf("  ", from) : text.indexOf(c, from);
+        }
+
+    }
+
+    /**
+     * A post-processor which works on the text itself.
+     * It can still be run on arrays, e.g. by another implementation of {@link PostProcessors#apply(String, List)}.
+     */
+    private static class BuiltIn implements PostProcessor {
+
+        private final UnaryOperator<String> function;
+
+        private BuiltIn(UnaryOperator<String> function) {
+            this.function = function;
+        }
+
+        @Override
+        public int process(char[] input, int length, char[] output) {
+            String text = new String(input, 0, length);
+            String result = function.apply(text);
+
+            if (result == text)
+                return -1;
+
+            result.getChars(0, result.length(), output, 0);
+            return result.length();
+        }
+
+    }
+
+}
@@ -0,0 +1,479 @@
+package de.linus.deepltranslator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Protects glossary terms, placeholders and markup from being translated.
+ * <p></p>
+ * Before a text is sent to DeepL, every protected span is replaced with a token like {@code [[0]]}.
+ * After the translation, the tokens are replaced with the original spans again.
+ * <p></p>
+ * The glossary is compiled into an Aho-Corasick automaton once, so masking a text
+ * only needs a single pass over its characters, regardless of the glossary size.
+ * <p></p>
+ * Token-like sequences which are already part of the source text are protected as well,
+ * so they are restored literally and can't be confused with the tokens of protected spans.
+ */
+public class TextProtection {
+
+    private static final String TOKEN_START = "[[";
+    private static final String TOKEN_END = "]]";
+
+    /**
+     * Tokens are restored with up to this many digits.
+     */
+    private static final int MAX_TOKEN_DIGITS = 9;
+
+    /**
+     * Goto function of the automaton, one map per state.
+     */
+    private final List<Map<Character, Integer>> transitions;
+
+    /**
+     * Failure function of the automaton.
+     */
+    private final int[] failure;
+
+    /**
+     * Length of the longest glossary term recognized in a state (including its failure chain), 0 if none.
+     */
+    private final int[] output;
+
+    /**
+     * Whether glossary terms must not be part of a longer word.
+     */
+    private final boolean wholeWords;
+
+    /**
+     * Whether placeholders like {@code {0}}, {@code {name}} or {@code %s} are protected.
+     */
+    private final boolean protectPlaceholders;
+
+    /**
+     * Whether markup like {@code <b>} or {@code </a>} is protected.
+     */
+    private final boolean protectMarkup;
+
+    private TextProtection(Collection<String> terms, boolean wholeWords, boolean protectPlaceholders, boolean protectMarkup) {
+        this.wholeWords = wholeWords;
+        this.protectPlaceholders = protectPlaceholders;
+        this.protectMarkup = protectMarkup;
+
+        // Trie
+        List<Map<Character, Integer>> transitions = new ArrayList<>();
+        List<Integer> output = new ArrayList<>();
+        transitions.add(new HashMap<>());
+        output.add(0);
+
+        for (String term : terms) {
+            int state = 0;
+
+            for (int i = 0; i < term.length(); i++) {
+                Integer next = transitions.get(state).get(term.charAt(i));
+
+                if (next == null) {
+                    next = transitions.size();
+                    transitions.get(state).put(term.charAt(i), next);
+                    transitions.add(new HashMap<>());
+                    output.add(0);
+                }
+
+                state = next;
+            }
+
+            output.set(state, term.length());
+        }
+
+        this.transitions = transitions;
+        this.failure = new int[transitions.size()];
+        this.output = new int[transitions.size()];
+
+        for (int i = 0; i < this.output.length; i++) {
+            this.output[i] = output.get(i);
+        }
+
+        // Failure links (breadth-first)
+        Queue<Integer> queue = new ArrayDeque<>(transitions.get(0).values());
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+
+            for (Map.Entry<Character, Integer> entry : transitions.get(state).entrySet()) {
+                int next = entry.getValue();
+                int fallback = failure[state];
+
+                while (fallback != 0 && !transitions.get(fallback).containsKey(entry.getKey())) {
+                    fallback = failure[fallback];
+                }
+
+                Integer fallbackNext = transitions.get(fallback).get(entry.getKey());
+                failure[next] = fallbackNext != null && fallbackNext != next ? fallbackNext : 0;
+                this.output[next] = Math.max(this.output[next], this.output[failure[next]]);
+                queue.add(next);
+            }
+        }
+    }
+
+    /**
+     * Replaces all protected spans of the text with tokens.
+     *
+     * @param text the source text
+     * @return the masked text, which is able to restore the protected spans
+     */
+    public MaskedText mask(String text) {
+        int length = text.length();
+        // Longest protected span starting at each index (exclusive end), 0 if none
+        int[] spanEnd = new int[length];
+        int state = 0;
+        // Next '>' after the current tag start and next '<' after the current index, length if none
+        int nextClose = -1;
+        int nextOpen = -1;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+
+            // Glossary terms
+            Integer next;
+
+            while ((next = transitions.get(state).get(c)) == null && state != 0) {
+                state = failure[state];
+            }
+
+            state = next == null ? 0 : next;
+
+            if (output[state] > 0) {
+                markTerm(text, i + 1, state, spanEnd);
+            }
+
+            // Existing tokens, placeholders and markup
+            int end = 0;
+
+            if (c == '[') {
+                end = tokenEnd(text, i);
+            } else if (protectPlaceholders && (c == '{' || c == '%')) {
+                end = c == '{' ? braceEnd(text, i) : formatEnd(text, i);
+            } else if (protectMarkup && c == '<' && isTagStart(text, i)) {
+                // Both positions only move forward, so the text is scanned once
+                if (nextClose < i + 2) {
+                    nextClose = text.indexOf('>', i + 2);
+                    nextClose = nextClose < 0 ? length : nextClose;
+                }
+
+                if (nextOpen <= i) {
+                    nextOpen = text.indexOf('<', i + 1);
+                    nextOpen = nextOpen < 0 ? length : nextOpen;
+                }
+
+                if (nextClose < length && nextClose < nextOpen) {
+                    end = nextClose + 1;
+                }
+            }
+
+            if (end > spanEnd[i]) {
+                spanEnd[i] = end;
+            }
+        }
+
+        StringBuilder masked = new StringBuilder(length + 16);
+        List<String> spans = new ArrayList<>();
+        int i = 0;
+
+        while (i < length) {
+            int end = spanEnd[i];
+
+            if (end > i) {
+                masked.append(TOKEN_START).append(spans.size()).append(TOKEN_END);
+                spans.add(text.substring(i, end));
+                i = end;
+            } else {
+                masked.append(text.charAt(i));
+                i++;
+            }
+        }
+
+        return new MaskedText(spans.isEmpty() ? text : masked.toString(), spans.toArray(new String[0]));
+    }
+
+    /**
+     * Records every glossary term recognized in the state, ending at the given (exclusive) index.
+     */
+    private void markTerm(String text, int end, int state, int[] spanEnd) {
+        // Terms recognized via the failure chain are suffixes of longer ones, so check each of them
+        for (int s = state; s != 0; s = failure[s]) {
+            int termLength = output[s];
+
+            if (termLength == 0)
+                break;
+
+            int start = end - termLength;
+
+            if (isWordBoundary(text, start, end) && end > spanEnd[start]) {
+                spanEnd[start] = end;
+            }
+
+            // Skip states whose longest term is the same one
+            while (failure[s] != 0 && output[failure[s]] == termLength) {
+                s = failure[s];
+            }
+        }
+    }
+
+    private boolean isWordBoundary(String text, int start, int end) {
+        if (!wholeWords)
+            return true;
+
+        boolean startOk = start == 0
+                || !Character.isLetterOrDigit(text.charAt(start))
+                || !Character.isLetterOrDigit(text.charAt(start - 1));
+        boolean endOk = end == text.length()
+                || !Character.isLetterOrDigit(text.charAt(end - 1))
+                || !Character.isLetterOrDigit(text.charAt(end));
+
+        return startOk && endOk;
+    }
+
+    /**
+     * Placeholders like {@code {0}} or {@code {name}}, returns the exclusive end or 0.
+     */
+    private static int braceEnd(String text, int start) {
+        int limit = Math.min(text.length(), start + 64);
+
+        for (int i = start + 1; i < limit; i++) {
+            char c = text.charAt(i);
+
+            if (c == '}') {
+                return i > start + 1 ? i + 1 : 0;
+            } else if (!Character.isLetterOrDigit(c) && c != '_' && c != '.' && c != ',' && c != ':' && c != '#') {
+                return 0;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Format specifiers like {@code %s}, {@code %1$d} or {@code %.2f}, returns the exclusive end or 0.
+     */
+    private static int formatEnd(String text, int start) {
+        int limit = Math.min(text.length(), start + 16);
+
+        for (int i = start + 1; i < limit; i++) {
+            char c = text.charAt(i);
+
+            if (Character.isLetter(c) || c == '%') {
+                return i + 1;
+            } else if (!Character.isDigit(c) && "$-#+0,(.".indexOf(c) < 0) {
+                return 0;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Whether a tag like {@code <b>}, {@code </a>}, {@code <br/>} or {@code <!-- -->} may start at the index.
+     */
+    private static boolean isTagStart(String text, int start) {
+        if (start + 1 >= text.length())
+            return false;
+
+        char first = text.charAt(start + 1);
+        return Character.isLetter(first) || first == '/' || first == '!';
+    }
+
+    /**
+     * Sequences which {@link MaskedText#restore(String)} would take for a token, like {@code [[0]]} or {@code [[ 12 ]]},
+     * returns the exclusive end or 0.
+     */
+    private static int tokenEnd(String text, int start) {
+        if (!text.startsWith(TOKEN_START, start))
+            return 0;
+
+        int i = skipSpaces(text, start + TOKEN_START.length());
+        int digitsStart = i;
+
+        while (i < text.length() && i < digitsStart + MAX_TOKEN_DIGITS && Character.isDigit(text.charAt(i))) {
+            i++;
+        }
+
+        if (i == digitsStart)
+            return 0;
+
+        i = skipSpaces(text, i);
+        return text.startsWith(TOKEN_END, i) ? i + TOKEN_END.length() : 0;
+    }
+
+    private static int skipSpaces(String text, int index) {
+        while (index < text.length() && text.charAt(index) == ' ') {
+            index++;
+        }
+
+        return index;
+    }
+
+    /**
+     * A text whose protected spans are replaced with tokens.
+     */
+    public static class MaskedText {
+
+        private final String text;
+        private final String[] spans;
+
+        private MaskedText(String text, String[] spans) {
+            this.text = text;
+            this.spans = spans;
+        }
+
+        /**
+         * The text which should be translated.
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Whether any span was protected.
+         */
+        public boolean isMasked() {
+            return spans.length > 0;
+        }
+
+        /**
+         * Replaces all tokens in the translation with the original spans.
+         * <p></p>
+         * Spaces which the translator inserted inside of a token are tolerated.
+         * Tokens which don't belong to this text are left as they are.
+         *
+         * @param translation the translation of the masked text
+         * @return the translation containing the original spans
+         */
+        public String restore(String translation) {
+            if (translation == null || spans.length == 0)
+                return translation;
+
+            int length = translation.length();
+            StringBuilder restored = new StringBuilder(length + 32);
+            int i = 0;
+
+            while (i < length) {
+                int tokenStart = translation.indexOf(TOKEN_START, i);
+
+                if (tokenStart < 0)
+                    break;
+
+                int j = skipSpaces(translation, tokenStart + TOKEN_START.length());
+                int index = 0;
+                int digitsStart = j;
+
+                while (j < length && j < digitsStart + MAX_TOKEN_DIGITS && Character.isDigit(translation.charAt(j))) {
+                    index = index * 10 + (translation.charAt(j) - '0');
+                    j++;
+                }
+
+                j = skipSpaces(translation, j);
+
+                if (j > digitsStart && index < spans.length && translation.startsWith(TOKEN_END, j)) {
+                    restored.append(translation, i, tokenStart).append(spans[index]);
+                    i = j + TOKEN_END.length();
+                } else {
+                    restored.append(translation, i, tokenStart + 1);
+                    i = tokenStart + 1;
+                }
+            }
+
+            return restored.append(translation, i, length).toString();
+        }
+
+        @Override
+        public String toString() {
+            return "MaskedText{text='" + text + "', spans=" + Arrays.toString(spans) + "}";
+        }
+
+    }
+
+    public static class Builder {
+
+        private final Set<String> terms;
+        private boolean wholeWords;
+        private boolean protectPlaceholders;
+        private boolean protectMarkup;
+
+        public Builder() {
+            terms = new LinkedHashSet<>();
+            wholeWords = true;
+            protectPlaceholders = true;
+            protectMarkup = true;
+        }
+
+        /**
+         * Adds terms which should not be translated, e.g. product names.
+         * <p></p>
+         * Terms are matched case-sensitively. If multiple terms overlap, the longest one wins.
+         */
+        public Builder addTerms(Collection<String> terms) {
+            for (String term : terms) {
+                if (term != null && !term.isEmpty()) {
+                    this.terms.add(term);
+                }
+            }
+
+            return this;
+        }
+
+        /**
+         * @see Builder#addTerms(Collection)
+         */
+        public Builder addTerms(String... terms) {
+            return addTerms(Arrays.asList(terms));
+        }
+
+        /**
+         * Whether glossary terms must not be part of a longer word,
+         * e.g. the term "Go" doesn't match "Good".
+         * <p></p>
+         * By default, only whole words are matched.
+         */
+        public Builder setWholeWords(boolean wholeWords) {
+            this.wholeWords = wholeWords;
+            return this;
+        }
+
+        /**
+         * Whether placeholders like {@code {0}}, {@code {name}}, {@code %s} or {@code %1$d} are protected.
+         * <p></p>
+         * By default, placeholders are protected.
+         */
+        public Builder setProtectPlaceholders(boolean protectPlaceholders) {
+            this.protectPlaceholders = protectPlaceholders;
+            return this;
+        }
+
+        /**
+         * Whether markup like {@code <b>}, {@code </a>} or {@code <br/>} is protected.
+         * <p></p>
+         * By default, markup is protected.
+         */
+        public Builder setProtectMarkup(boolean protectMarkup) {
+            this.protectMarkup = protectMarkup;
+            return this;
+        }
+
+        /**
+         * Compiles the glossary.
+         */
+        public TextProtection build() {
+            return new TextProtection(terms, wholeWords, protectPlaceholders, protectMarkup);
+        }
+
+    }
+
+}
@@ -0,0 +1,20 @@
+package de.linus.deepltranslator;
+
+/**
+ * Receives the translation while it is rendered on the DeepL site.
+ *
+ * @see DeepLTranslator#translateStreaming(String, SourceLanguage, TargetLanguage, TranslationListener)
+ */
+@FunctionalInterface
+public interface TranslationListener {
+
+    /**
+     * Called each time the rendered translation changes, before it is complete.
+     * <p></p>
+     * The partial translation is post-processed and its protected spans are restored like the final one.
+     *
+     * @param partialTranslation the translation rendered so far
+     */
+    void onPartialTranslation(String partialTranslation);
+
+}
@@ -0,0 +1,34 @@
+package de.linus.deepltranslator;
+
+import org.openqa.selenium.TimeoutException;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Translates texts from a {@code SourceLanguage} to a {@code TargetLanguage}.
+ *
+ * @see DeepLTranslator
+ * @see de.linus.deepltranslator.server.RemoteDeepLTranslator
+ */
+public interface Translator {
+
+    /**
+     * Translates a text, which is limited to 5000 characters,
+     * from a {@code SourceLanguage} to a {@code TargetLanguage}.
+     *
+     * @param text source text
+     * @param from source language
+     * @param to target language
+     *
+     * @return the translation
+     * @throws IllegalStateException invalid argument(s)
+     * @throws TimeoutException translation failed and no more repetitions available
+     */
+    String translate(String text, SourceLanguage from, TargetLanguage to) throws IllegalStateException, TimeoutException;
+
+    /**
+     * @see Translator#translate(String, SourceLanguage, TargetLanguage)
+     */
+    CompletableFuture<String> translateAsync(String text, SourceLanguage from, TargetLanguage to) throws IllegalStateException;
+
+}
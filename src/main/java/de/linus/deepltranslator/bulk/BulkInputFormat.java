@@ -0,0 +1,230 @@
+package de.linus.deepltranslator.bulk;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+import org.openqa.selenium.json.JsonOutput;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Format of the input and output files of a {@link BulkTranslationJob}. Each line is one record.
+ * <p></p>
+ * An invalid line is written with an error marker instead of its translation, so the output keeps one line per input line.
+ */
+public enum BulkInputFormat {
+
+    /**
+     * Each line is a text, the output line is its translation.
+     * Line breaks in the translation are replaced with spaces.
+     * <p></p>
+     * The output line of an invalid line is empty.
+     */
+    LINES {
+        @Override
+        Record parse(String line, String field) {
+            return new Record(line, BulkInputFormat::singleLine);
+        }
+
+        @Override
+        String error(String line, String field, String message) {
+            return "";
+        }
+    },
+
+    /**
+     * Comma-separated values, the text is taken from the column with the given index (starting at 0).
+     * The output line is the same row with the translation in place of the text.
+     * Line breaks in the translation are replaced with spaces.
+     * <p></p>
+     * Quoted values must not contain line breaks.
+     * <p></p>
+     * The output line of an invalid line is the same row with an empty text.
+     */
+    CSV {
+        @Override
+        Record parse(String line, String field) {
+            List<String> values = parseCsv(line);
+            int column = Integer.parseInt(field);
+
+            if (column >= values.size())
+                return new Record("", translation -> line);
+
+            return new Record(values.get(column), translation -> {
+                values.set(column, singleLine(translation));
+                return formatCsv(values);
+            });
+        }
+
+        @Override
+        String error(String line, String field, String message) {
+            return parse(line, field).output.apply("");
+        }
+    },
+
+    /**
+     * Each line is a JSON object, the text is taken from the field with the given name.
+     * The output line is the same object with an additional {@code translation} field.
+     * <p></p>
+     * The output line of an invalid line is the same object (or an empty one, if the line is no JSON object)
+     * with an additional {@code error} field instead.
+     */
+    JSONL {
+        @Override
+        Record parse(String line, String field) {
+            if (line.trim().isEmpty())
+                return new Record("", translation -> line);
+
+            Map<String, Object> object;
+
+            try {
+                object = JSON.toType(line, Json.MAP_TYPE);
+            } catch (JsonException | ClassCastException e) {
+                throw new IllegalStateException("Invalid JSON: " + line, e);
+            }
+
+            if (object == null)
+                throw new IllegalStateException("Invalid JSON: " + line);
+
+            Object text = object.get(field);
+
+            return new Record(text instanceof String ? (String) text : "", translation -> {
+                object.put(TRANSLATION_FIELD, translation);
+                return toJson(object);
+            });
+        }
+
+        @Override
+        String error(String line, String field, String message) {
+            Map<String, Object> object;
+
+            try {
+                object = JSON.toType(line, Json.MAP_TYPE);
+            } catch (JsonException | ClassCastException e) {
+                object = null;
+            }
+
+            if (object == null) {
+                object = new LinkedHashMap<>();
+            }
+
+            object.put(ERROR_FIELD, message);
+            return toJson(object);
+        }
+    };
+
+    /**
+     * The field which is added to each JSON object.
+     */
+    public static final String TRANSLATION_FIELD = "translation";
+
+    /**
+     * The field which is added to each JSON object which couldn't be translated.
+     */
+    public static final String ERROR_FIELD = "error";
+
+    private static final Json JSON = new Json();
+
+    /**
+     * Extracts the text from a line.
+     *
+     * @param field CSV column index or JSON field name, unused for lines
+     */
+    abstract Record parse(String line, String field);
+
+    /**
+     * Returns the output line of an invalid line.
+     *
+     * @param field CSV column index or JSON field name, unused for lines
+     * @param message why the line couldn't be translated
+     */
+    abstract String error(String line, String field, String message);
+
+    /**
+     * Replaces line breaks with spaces, so the output keeps one line per input line.
+     */
+    private static String singleLine(String translation) {
+        return translation.replace("\r\n", " ").replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static String toJson(Map<String, Object> object) {
+        StringWriter writer = new StringWriter();
+
+        try (JsonOutput output = JSON.newOutput(writer).setPrettyPrint(false)) {
+            output.write(object);
+        }
+
+        return writer.toString();
+    }
+
+    private static List<String> parseCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+
+        values.add(value.toString());
+        return values;
+    }
+
+    private static String formatCsv(List<String> values) {
+        StringBuilder line = new StringBuilder();
+
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i);
+
+            if (i > 0) {
+                line.append(',');
+            }
+
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+
+        return line.toString();
+    }
+
+    /**
+     * The text of a line and how to write the translation.
+     */
+    static class Record {
+
+        final String text;
+        final Function<String, String> output;
+
+        Record(String text, Function<String, String> output) {
+            this.text = text;
+            this.output = output;
+        }
+
+    }
+
+}
@@ -0,0 +1,116 @@
+package de.linus.deepltranslator.bulk;
+
+import de.linus.deepltranslator.DeepLConfiguration;
+import de.linus.deepltranslator.DeepLTranslator;
+import de.linus.deepltranslator.SourceLanguage;
+import de.linus.deepltranslator.TargetLanguage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Command line interface for {@link BulkTranslationJob}.
+ * <p></p>
+ * Usage: {@code java -jar DeepLTranslator-cli.jar --input <file> --output <file> --from <code> --to <code>
+ * [--format lines|csv|jsonl] [--field <column or name>] [--parallelism <n>] [--checkpoint-interval <n>]}
+ */
+public class BulkTranslationCli {
+
+    private static final String USAGE = "Usage: --input <file> --output <file> --from <language code> --to <language code>"
+            + " [--format lines|csv|jsonl] [--field <CSV column index or JSON field name>]"
+            + " [--parallelism <n>] [--checkpoint-interval <n>]";
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--"))
+                exit(USAGE);
+
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+
+        if (args.length % 2 != 0 || !options.containsKey("input") || !options.containsKey("output")
+                || !options.containsKey("from") || !options.containsKey("to"))
+            exit(USAGE);
+
+        Path input = Paths.get(options.get("input"));
+        Path output = Paths.get(options.get("output"));
+        SourceLanguage from = SourceLanguage.getLanguage(options.get("from"))
+                .orElseGet(() -> exit("Unknown source language: " + options.get("from")));
+        TargetLanguage to = TargetLanguage.getLanguage(options.get("to"))
+                .orElseGet(() -> exit("Unknown target language: " + options.get("to")));
+        BulkInputFormat format = parse(options.getOrDefault("format", "lines"),
+                value -> BulkInputFormat.valueOf(value.toUpperCase(Locale.ROOT)));
+        Integer parallelism = options.containsKey("parallelism") ? parsePositive(options.get("parallelism")) : null;
+        Integer checkpointInterval = options.containsKey("checkpoint-interval") ? parsePositive(options.get("checkpoint-interval")) : null;
+
+        // Checked before the browser is started
+        if (format == BulkInputFormat.CSV && options.containsKey("field") && !options.get("field").matches("\\d+"))
+            exit(USAGE);
+
+        DeepLTranslator translator = new DeepLTranslator(new DeepLConfiguration.Builder()
+                .setPostProcessing(true)
+                .build());
+
+        BulkTranslationJob.Builder builder = new BulkTranslationJob.Builder(translator, input, output, from, to)
+                .setFormat(format)
+                .setField(options.get("field"));
+
+        if (parallelism != null) {
+            builder.setParallelism(parallelism);
+        }
+
+        if (checkpointInterval != null) {
+            builder.setCheckpointInterval(checkpointInterval);
+        }
+
+        int status = 0;
+
+        try {
+            BulkTranslationJob job = builder.build();
+            long lines = job.run();
+            System.out.println("Translated " + lines + " lines to " + output);
+
+            if (Files.exists(job.getErrors()) && Files.size(job.getErrors()) > 0) {
+                System.err.println("Some lines couldn't be translated, they are listed in " + job.getErrors());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.err.println("Job stopped, run the same command again to resume.");
+            status = 1;
+        } finally {
+            DeepLTranslator.shutdown();
+        }
+
+        System.exit(status);
+    }
+
+    /**
+     * Parses an option value, or exits with the usage message if it is invalid.
+     */
+    private static <T> T parse(String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            return exit(USAGE);
+        }
+    }
+
+    private static int parsePositive(String value) {
+        int number = parse(value, Integer::parseInt);
+        return number > 0 ? number : exit(USAGE);
+    }
+
+    private static <T> T exit(String message) {
+        System.err.println(message);
+        System.exit(2);
+        return null;
+    }
+
+}
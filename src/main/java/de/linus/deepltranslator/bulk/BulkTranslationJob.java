@@ -0,0 +1,539 @@
+package de.linus.deepltranslator.bulk;
+
+import de.linus.deepltranslator.SourceLanguage;
+import de.linus.deepltranslator.TargetLanguage;
+import de.linus.deepltranslator.Translator;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Translates a file line by line and writes the translations to another file in the same order.
+ * <p></p>
+ * The progress is saved in a checkpoint file next to the output file ({@code <output>.checkpoint}).
+ * If the job is started again, it continues reading the input file at the byte offset of the last checkpoint.
+ * <p></p>
+ * Identical texts are only translated once per run, and at most {@code parallelism} translations run at the same time.
+ * <p></p>
+ * An invalid line, e.g. a text which exceeds the limit of 5000 characters or invalid JSON, is written with an error marker
+ * (see {@link BulkInputFormat}) and listed with its line number in an error file next to the output file ({@code <output>.errors}).
+ * Any other failed translation, e.g. a timeout, stops the job, so it can be resumed later.
+ */
+public class BulkTranslationJob {
+
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    private static final String CHECKPOINT_LINES = "lines";
+    private static final String CHECKPOINT_BYTES = "bytes";
+    private static final String CHECKPOINT_ERROR_BYTES = "errorBytes";
+    private static final String CHECKPOINT_INPUT_BYTES = "inputBytes";
+    private static final String ERRORS_SUFFIX = ".errors";
+
+    /**
+     * Translations are remembered for deduplication up to this number of distinct texts.
+     */
+    private static final int MAX_DEDUPLICATED_TEXTS = 100_000;
+
+    private final Translator translator;
+    private final Path input;
+    private final Path output;
+    private final Path checkpoint;
+    private final Path errors;
+    private final SourceLanguage from;
+    private final TargetLanguage to;
+    private final BulkInputFormat format;
+    private final String field;
+    private final int parallelism;
+    private final int checkpointInterval;
+
+    private BulkTranslationJob(Translator translator, Path input, Path output, SourceLanguage from, TargetLanguage to,
+                               BulkInputFormat format, String field, int parallelism, int checkpointInterval) {
+        this.translator = translator;
+        this.input = input;
+        this.output = output;
+        this.checkpoint = output.resolveSibling(output.getFileName() + CHECKPOINT_SUFFIX);
+        this.errors = output.resolveSibling(output.getFileName() + ERRORS_SUFFIX);
+        this.from = from;
+        this.to = to;
+        this.format = format;
+        this.field = field;
+        this.parallelism = parallelism;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * The file which lists the invalid lines, if there were any.
+     */
+    public Path getErrors() {
+        return errors;
+    }
+
+    /**
+     * Runs the job until all lines of the input file are translated or a translation failed.
+     *
+     * @return the number of lines written in this run, including the invalid ones
+     * @throws IOException the input, output, checkpoint or error file couldn't be read or written
+     * @throws IllegalStateException the output file doesn't match its checkpoint
+     * @throws org.openqa.selenium.TimeoutException a translation failed
+     */
+    public long run() throws IOException {
+        Properties state = readCheckpoint();
+        long skipLines = Long.parseLong(state.getProperty(CHECKPOINT_LINES, "0"));
+        long outputBytes = Long.parseLong(state.getProperty(CHECKPOINT_BYTES, "0"));
+        long errorBytes = Long.parseLong(state.getProperty(CHECKPOINT_ERROR_BYTES, "0"));
+        String inputBytes = state.getProperty(CHECKPOINT_INPUT_BYTES);
+
+        if (Files.exists(errors)) {
+            // Discard the errors listed after the checkpoint, their lines are translated again
+            try (FileChannel errorChannel = FileChannel.open(errors, StandardOpenOption.WRITE)) {
+                errorChannel.truncate(errorBytes);
+            }
+        }
+
+        try (FileChannel outputChannel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             LineReader reader = new LineReader(FileChannel.open(input, StandardOpenOption.READ))) {
+            if (outputChannel.size() < outputBytes)
+                throw new IllegalStateException("Output file is shorter than its checkpoint");
+
+            if (outputBytes == 0 && outputChannel.size() > 0 && !Files.exists(checkpoint))
+                throw new IllegalStateException("Output file already exists, but has no checkpoint");
+
+            // Discard everything written after the checkpoint
+            outputChannel.truncate(outputBytes);
+            outputChannel.position(outputBytes);
+
+            if (inputBytes != null) {
+                reader.seek(Long.parseLong(inputBytes));
+            } else {
+                // Checkpoints of older versions only count the lines
+                for (long i = 0; i < skipLines; i++) {
+                    if (reader.readLine() == null)
+                        return 0;
+                }
+            }
+
+            return translate(reader, outputChannel, skipLines);
+        }
+    }
+
+    private long translate(LineReader reader, FileChannel outputChannel, long linesDone) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(outputChannel), StandardCharsets.UTF_8));
+        ErrorLog errorLog = new ErrorLog();
+        Semaphore permits = new Semaphore(parallelism);
+        Deque<Pending> pending = new ArrayDeque<>();
+        Map<String, CompletableFuture<String>> translations = new LinkedHashMap<String, CompletableFuture<String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<String>> eldest) {
+                return size() > MAX_DEDUPLICATED_TEXTS;
+            }
+        };
+
+        long written = 0;
+        long inputBytes = reader.position();
+        String line;
+
+        try {
+            while ((line = reader.readLine()) != null) {
+                long lineNumber = linesDone + written + pending.size() + 1;
+                BulkInputFormat.Record record;
+                CompletableFuture<String> translation;
+
+                try {
+                    record = format.parse(line, field);
+                    translation = translation(record.text, translations, permits);
+                } catch (IllegalStateException e) {
+                    // The line can't be parsed
+                    record = null;
+                    translation = failed(e);
+                }
+
+                pending.add(new Pending(lineNumber, line, reader.position(), record, translation));
+
+                // Write finished translations in order, block if too many are waiting
+                while (!pending.isEmpty() && (pending.peek().translation.isDone() || pending.size() > parallelism * 4)) {
+                    inputBytes = write(writer, errorLog, pending.poll());
+                    written++;
+
+                    if (written % checkpointInterval == 0) {
+                        writeCheckpoint(writer, outputChannel, errorLog, linesDone + written, inputBytes);
+                    }
+                }
+            }
+
+            while (!pending.isEmpty()) {
+                inputBytes = write(writer, errorLog, pending.poll());
+                written++;
+            }
+        } finally {
+            try {
+                writeCheckpoint(writer, outputChannel, errorLog, linesDone + written, inputBytes);
+            } finally {
+                errorLog.close();
+            }
+        }
+
+        return written;
+    }
+
+    /**
+     * Starts the translation of a text, unless the same text is already translated.
+     */
+    private CompletableFuture<String> translation(String text, Map<String, CompletableFuture<String>> translations,
+                                                  Semaphore permits) {
+        if (text.trim().isEmpty())
+            return CompletableFuture.completedFuture(text);
+
+        CompletableFuture<String> translation = translations.get(text);
+
+        if (translation == null) {
+            permits.acquireUninterruptibly();
+
+            try {
+                translation = translator.translateAsync(text, from, to);
+            } catch (RuntimeException e) {
+                translation = failed(e);
+            }
+
+            translation.whenComplete((result, ex) -> permits.release());
+            translations.put(text, translation);
+        }
+
+        return translation;
+    }
+
+    /**
+     * Writes the translation of a line, or its error marker if the line is invalid.
+     * Any other failure is thrown, so the job stops before the line.
+     *
+     * @return the input byte offset after the line
+     */
+    private long write(Writer writer, ErrorLog errorLog, Pending pending) throws IOException {
+        String outputLine;
+
+        try {
+            String translation = pending.translation.join();
+            outputLine = pending.record.output.apply(translation);
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+
+            if (!isInvalid(cause)) {
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+
+                throw e;
+            }
+
+            outputLine = format.error(pending.line, field, cause.getMessage());
+            errorLog.write(pending.lineNumber + "\t" + cause.getMessage() + "\n");
+        }
+
+        writer.write(outputLine);
+        writer.write('\n');
+        return pending.inputBytes;
+    }
+
+    /**
+     * Whether the translator rejected the text, so translating it again would fail as well.
+     */
+    private static boolean isInvalid(Throwable throwable) {
+        return throwable instanceof IllegalStateException || throwable instanceof IllegalArgumentException;
+    }
+
+    private static CompletableFuture<String> failed(Throwable throwable) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    private Properties readCheckpoint() throws IOException {
+        Properties state = new Properties();
+
+        if (Files.exists(checkpoint)) {
+            try (InputStream in = Files.newInputStream(checkpoint)) {
+                state.load(in);
+            }
+        }
+
+        return state;
+    }
+
+    /**
+     * Flushes the output and the error file and atomically replaces the checkpoint file.
+     */
+    private void writeCheckpoint(Writer writer, FileChannel outputChannel, ErrorLog errorLog, long lines, long inputBytes) throws IOException {
+        writer.flush();
+        outputChannel.force(false);
+        errorLog.flush();
+
+        Properties state = new Properties();
+        state.setProperty(CHECKPOINT_LINES, Long.toString(lines));
+        state.setProperty(CHECKPOINT_BYTES, Long.toString(outputChannel.position()));
+        state.setProperty(CHECKPOINT_ERROR_BYTES, Long.toString(Files.exists(errors) ? Files.size(errors) : 0));
+        state.setProperty(CHECKPOINT_INPUT_BYTES, Long.toString(inputBytes));
+
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            state.store(out, "Progress of " + input);
+        }
+
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * A line which waits for its translation.
+     */
+    private static class Pending {
+
+        private final long lineNumber;
+        private final String line;
+        private final long inputBytes;
+        private final BulkInputFormat.Record record;
+        private final CompletableFuture<String> translation;
+
+        /**
+         * @param inputBytes the input byte offset after the line
+         * @param record null if the line couldn't be parsed
+         */
+        private Pending(long lineNumber, String line, long inputBytes, BulkInputFormat.Record record, CompletableFuture<String> translation) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.inputBytes = inputBytes;
+            this.record = record;
+            this.translation = translation;
+        }
+
+    }
+
+    /**
+     * Reads UTF-8 lines like {@link java.io.BufferedReader#readLine()} and keeps track of the byte offset,
+     * so a resumed job can seek to its checkpoint. Line breaks are found on the bytes,
+     * which is safe because they never occur within a multi-byte UTF-8 sequence.
+     */
+    private static class LineReader implements Closeable {
+
+        private final FileChannel channel;
+        private final InputStream in;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int bufferPosition;
+        private int bufferLimit;
+        private byte[] line = new byte[256];
+        private long position;
+
+        private LineReader(FileChannel channel) {
+            this.channel = channel;
+            this.in = Channels.newInputStream(channel);
+        }
+
+        /**
+         * The byte offset after the last line read.
+         */
+        private long position() {
+            return position;
+        }
+
+        private void seek(long position) throws IOException {
+            if (position > channel.size())
+                throw new IllegalStateException("Input file is shorter than its checkpoint");
+
+            channel.position(position);
+            bufferPosition = bufferLimit = 0;
+            this.position = position;
+        }
+
+        /**
+         * @return the next line without its line break, or null at the end of the file
+         */
+        private String readLine() throws IOException {
+            int length = 0;
+
+            while (true) {
+                if (bufferPosition == bufferLimit && !fill()) {
+                    return length == 0 ? null : decode(length);
+                }
+
+                byte b = buffer[bufferPosition++];
+                position++;
+
+                if (b == '\n')
+                    return decode(length);
+
+                if (b == '\r') {
+                    // Consume the line feed of a CRLF line break, so the offset is after the whole line break
+                    if ((bufferPosition < bufferLimit || fill()) && buffer[bufferPosition] == '\n') {
+                        bufferPosition++;
+                        position++;
+                    }
+
+                    return decode(length);
+                }
+
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+
+                line[length++] = b;
+            }
+        }
+
+        private boolean fill() throws IOException {
+            int read = in.read(buffer);
+            bufferPosition = 0;
+            bufferLimit = Math.max(read, 0);
+            return read > 0;
+        }
+
+        private String decode(int length) {
+            return new String(line, 0, length, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+    }
+
+    /**
+     * Appends to the error file, which is only created once there is an invalid line.
+     */
+    private class ErrorLog {
+
+        private Writer writer;
+
+        private void write(String entry) throws IOException {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(errors, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+
+            writer.write(entry);
+        }
+
+        private void flush() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+
+        private void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+
+    }
+
+    public static class Builder {
+
+        private final Translator translator;
+        private final Path input;
+        private final Path output;
+        private final SourceLanguage from;
+        private final TargetLanguage to;
+        private BulkInputFormat format;
+        private String field;
+        private int parallelism;
+        private int checkpointInterval;
+
+        /**
+         * @param translator the translator, e.g. a {@link de.linus.deepltranslator.DeepLTranslator}
+         * @param input the file to translate
+         * @param output the file to write the translations to
+         * @param from source language
+         * @param to target language
+         */
+        public Builder(Translator translator, Path input, Path output, SourceLanguage from, TargetLanguage to) {
+            this.translator = translator;
+            this.input = input;
+            this.output = output;
+            this.from = from;
+            this.to = to;
+            format = BulkInputFormat.LINES;
+            field = null;
+            parallelism = 4;
+            checkpointInterval = 1000;
+        }
+
+        /**
+         * The format of the input file.
+         * <p></p>
+         * Default value is {@link BulkInputFormat#LINES}.
+         */
+        public Builder setFormat(BulkInputFormat format) {
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * The CSV column index or the JSON field name of the text.
+         * <p></p>
+         * Default value is "0" for CSV and "text" for JSONL.
+         */
+        public Builder setField(String field) {
+            this.field = field;
+            return this;
+        }
+
+        /**
+         * The maximum number of translations at the same time.
+         * A {@link de.linus.deepltranslator.DeepLTranslator} uses one browser instance per running translation,
+         * so this is the size of the browser pool used by the job.
+         * <p></p>
+         * Default value is 4.
+         */
+        public Builder setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * The number of written lines after which the checkpoint is updated.
+         * <p></p>
+         * Default value is 1000.
+         */
+        public Builder setCheckpointInterval(int checkpointInterval) {
+            this.checkpointInterval = checkpointInterval;
+            return this;
+        }
+
+        /**
+         * Builds the job.
+         */
+        public BulkTranslationJob build() {
+            if (parallelism < 1 || checkpointInterval < 1)
+                throw new IllegalStateException("Parallelism and checkpoint interval must be positive");
+
+            String field = this.field;
+
+            if (field == null) {
+                field = format == BulkInputFormat.CSV ? "0" : "text";
+            } else if (format == BulkInputFormat.CSV && !field.matches("\\d+")) {
+                throw new IllegalStateException("CSV field must be a column index");
+            }
+
+            return new BulkTranslationJob(translator, input, output, from, to, format, field, parallelism, checkpointInterval);
+        }
+
+    }
+
+}
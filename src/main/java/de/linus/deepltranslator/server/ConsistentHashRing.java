@@ -0,0 +1,72 @@
+package de.linus.deepltranslator.server;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Maps keys to nodes, so that adding or removing a node only moves the keys of that node.
+ * <p></p>
+ * Each node is placed on the ring multiple times (virtual nodes) to spread the keys evenly.
+ */
+class ConsistentHashRing<T> {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final TreeMap<Long, T> ring = new TreeMap<>();
+    private final Set<T> nodes = new LinkedHashSet<>();
+
+    ConsistentHashRing(Collection<T> nodes, int virtualNodes) {
+        for (T node : nodes) {
+            if (!this.nodes.add(node))
+                continue;
+
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * Returns all nodes in the order in which they are responsible for the key:
+     * The first node owns the key, the others are the fallbacks.
+     */
+    List<T> getNodes(String key) {
+        List<T> result = new ArrayList<>(nodes.size());
+
+        if (ring.isEmpty())
+            return result;
+
+        long hash = hash(key);
+        SortedMap<Long, T> tail = ring.tailMap(hash);
+        addDistinct(result, tail);
+        addDistinct(result, ring.headMap(hash));
+
+        return result;
+    }
+
+    private void addDistinct(List<T> result, SortedMap<Long, T> section) {
+        for (Map.Entry<Long, T> entry : section.entrySet()) {
+            if (result.size() == nodes.size())
+                return;
+
+            if (!result.contains(entry.getValue())) {
+                result.add(entry.getValue());
+            }
+        }
+    }
+
+    static long hash(String key) {
+        return HASH_FUNCTION.hashString(key, StandardCharsets.UTF_8).asLong();
+    }
+
+}
@@ -0,0 +1,174 @@
+package de.linus.deepltranslator.server;
+
+import com.google.common.io.ByteStreams;
+import de.linus.deepltranslator.SourceLanguage;
+import de.linus.deepltranslator.TargetLanguage;
+import de.linus.deepltranslator.Translator;
+import org.openqa.selenium.TimeoutException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Translates via one or more {@link TranslationServer} nodes.
+ * <p></p>
+ * Requests are distributed by consistent hashing of the text and the language pair,
+ * so the same translation is always requested from the same node and its cache stays hot.
+ * If a node is not reachable, the next node on the ring is used.
+ * A node which accepted the request but doesn't respond in time results in a {@link TimeoutException},
+ * so a slow translation is not requested twice.
+ */
+public class RemoteDeepLTranslator implements Translator {
+
+    /**
+     * Virtual nodes per server on the hash ring.
+     */
+    private static final int VIRTUAL_NODES = 128;
+
+    private final ConsistentHashRing<URI> ring;
+    private final Duration timeout;
+
+    /**
+     * For asynchronous translating.
+     *
+     * @see RemoteDeepLTranslator#translateAsync(String, SourceLanguage, TargetLanguage)
+     */
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    /**
+     * @param nodes the base URIs of the servers, e.g. {@code http://localhost:8080}
+     * @param timeout the read timeout of a request, should exceed the translation timeout and repetitions of the servers
+     */
+    public RemoteDeepLTranslator(List<URI> nodes, Duration timeout) {
+        if (nodes.isEmpty())
+            throw new IllegalStateException("No translation server specified");
+
+        this.ring = new ConsistentHashRing<>(nodes, VIRTUAL_NODES);
+        this.timeout = timeout;
+    }
+
+    @Override
+    public String translate(String text, SourceLanguage from, TargetLanguage to) throws IllegalStateException, TimeoutException {
+        isValid(text, from, to);
+
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        IOException lastException = null;
+
+        for (URI node : ring.getNodes(TranslationServer.cacheKey(text, from, to))) {
+            HttpURLConnection connection;
+
+            try {
+                connection = connect(node, from, to, body.length);
+            } catch (IOException e) {
+                // Node not reachable, try the next one
+                lastException = e;
+                continue;
+            }
+
+            // Once connected, the node may be translating already, so the request is not repeated on another node
+            try {
+                return request(connection, node, body);
+            } catch (SocketTimeoutException e) {
+                throw new TimeoutException("Translation server " + node + " did not respond in time", e);
+            } catch (IOException e) {
+                throw new TimeoutException("Request to translation server " + node + " failed", e);
+            } finally {
+                connection.disconnect();
+            }
+        }
+
+        throw new TimeoutException("No translation server reachable", lastException);
+    }
+
+    @Override
+    public CompletableFuture<String> translateAsync(String text, SourceLanguage from, TargetLanguage to) throws IllegalStateException {
+        isValid(text, from, to);
+
+        return CompletableFuture.supplyAsync(() -> translate(text, from, to), executor);
+    }
+
+    /**
+     * Blocks until all async translations from this instance have completed execution, or the timeout occurs,
+     * or the current thread is interrupted, whichever happens first.
+     * <p></p>
+     * After the termination, you can no longer use this instance for async translations.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Opens a connection to the node, so only a node which is not reachable throws an exception here.
+     */
+    private HttpURLConnection connect(URI node, SourceLanguage from, TargetLanguage to, int bodyLength) throws IOException {
+        URL url = node.resolve(TranslationServer.TRANSLATE_PATH
+                + "?from=" + encode(from.getLanguageCode())
+                + "&to=" + encode(to.getLanguageCode())).toURL();
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setConnectTimeout((int) Math.min(Integer.MAX_VALUE, timeout.toMillis()));
+        connection.setReadTimeout((int) Math.min(Integer.MAX_VALUE, timeout.toMillis()));
+        connection.setFixedLengthStreamingMode(bodyLength);
+        connection.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
+        connection.connect();
+
+        return connection;
+    }
+
+    private static String request(HttpURLConnection connection, URI node, byte[] body) throws IOException {
+        try (OutputStream output = connection.getOutputStream()) {
+            output.write(body);
+        }
+
+        int status = connection.getResponseCode();
+        InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        String response;
+
+        try (InputStream responseBody = input) {
+            response = responseBody == null ? "" : new String(ByteStreams.toByteArray(responseBody), StandardCharsets.UTF_8);
+        }
+
+        if (status == HttpURLConnection.HTTP_OK) {
+            return response;
+        } else if (status == HttpURLConnection.HTTP_BAD_REQUEST) {
+            throw new IllegalStateException(response);
+        } else {
+            throw new TimeoutException("Translation server " + node + " responded with " + status + ": " + response);
+        }
+    }
+
+    private static String encode(String value) throws UnsupportedEncodingException {
+        return URLEncoder.encode(value, "UTF-8");
+    }
+
+    /**
+     * Checks if all arguments are valid, if not, an exception is thrown.
+     */
+    private static void isValid(String text, SourceLanguage from, TargetLanguage to) throws IllegalStateException {
+        if(text == null || text.trim().isEmpty()) {
+            throw new IllegalStateException("Text is null or empty");
+        } else if(from == null || to == null) {
+            throw new IllegalStateException("Language is null");
+        } else if(text.length() > 5000) {
+            throw new IllegalStateException("Text length is limited to 5000 characters");
+        }
+    }
+
+}
@@ -0,0 +1,222 @@
+package de.linus.deepltranslator.server;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.linus.deepltranslator.DeepLTranslator;
+import de.linus.deepltranslator.SourceLanguage;
+import de.linus.deepltranslator.TargetLanguage;
+import de.linus.deepltranslator.Translator;
+import org.openqa.selenium.TimeoutException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides a {@link Translator}, usually a {@link DeepLTranslator}, via HTTP,
+ * so multiple processes can share one browser pool and one cache.
+ * <p></p>
+ * Request: {@code POST /translate?from=en&to=de} with the source text as UTF-8 body.
+ * <p>Response: the translation as UTF-8 body with status 200,
+ * 400 for invalid arguments, 504 if the translation failed and 500 for other errors.
+ * <p></p>
+ * {@code GET /health} responds with status 200 while the server is running.
+ * <p></p>
+ * Requests are handled by a fixed number of threads. If all of them are busy and too many requests are queued,
+ * further connections are closed without a response.
+ *
+ * @see RemoteDeepLTranslator
+ */
+public class TranslationServer {
+
+    static final String TRANSLATE_PATH = "/translate";
+    static final String HEALTH_PATH = "/health";
+
+    /**
+     * Default number of threads which handle requests.
+     */
+    public static final int DEFAULT_THREADS = 32;
+
+    /**
+     * Requests which wait for a thread, per thread.
+     */
+    private static final int QUEUED_REQUESTS_PER_THREAD = 16;
+
+    private final Translator translator;
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+
+    /**
+     * Translations by source language, target language and text.
+     */
+    private final Cache<String, String> cache;
+
+    /**
+     * With {@link TranslationServer#DEFAULT_THREADS} threads.
+     *
+     * @param translator the translator which is used for all requests
+     * @param address the address to listen on
+     * @param cacheSize the maximum number of cached translations, 0 to disable caching
+     */
+    public TranslationServer(Translator translator, InetSocketAddress address, long cacheSize) throws IOException {
+        this(translator, address, cacheSize, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param translator the translator which is used for all requests
+     * @param address the address to listen on
+     * @param cacheSize the maximum number of cached translations, 0 to disable caching
+     * @param threads the number of threads which handle requests
+     */
+    public TranslationServer(Translator translator, InetSocketAddress address, long cacheSize, int threads) throws IOException {
+        if (threads < 1)
+            throw new IllegalStateException("At least one thread is required");
+
+        this.translator = translator;
+        this.cache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(threads * QUEUED_REQUESTS_PER_THREAD));
+        this.httpServer = HttpServer.create(address, 0);
+        this.httpServer.setExecutor(executor);
+        this.httpServer.createContext(TRANSLATE_PATH, this::handleTranslate);
+        this.httpServer.createContext(HEALTH_PATH, exchange -> respond(exchange, HttpURLConnection.HTTP_OK, "OK"));
+    }
+
+    /**
+     * Starts listening for requests.
+     */
+    public void start() {
+        httpServer.start();
+    }
+
+    /**
+     * Stops listening for requests and waits at most the given number of seconds for running requests.
+     * The translator is not shut down.
+     */
+    public void stop(int delaySeconds) {
+        httpServer.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * The address the server is listening on.
+     */
+    public InetSocketAddress getAddress() {
+        return httpServer.getAddress();
+    }
+
+    private void handleTranslate(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, HttpURLConnection.HTTP_BAD_METHOD, "Only POST is supported");
+                return;
+            }
+
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            SourceLanguage from = SourceLanguage.getLanguage(query.get("from")).orElse(null);
+            TargetLanguage to = TargetLanguage.getLanguage(query.get("to")).orElse(null);
+            String text;
+
+            try (InputStream body = exchange.getRequestBody()) {
+                text = new String(ByteStreams.toByteArray(body), StandardCharsets.UTF_8);
+            }
+
+            respond(exchange, HttpURLConnection.HTTP_OK, translate(text, from, to));
+        } catch (IllegalStateException e) {
+            respond(exchange, HttpURLConnection.HTTP_BAD_REQUEST, e.getMessage());
+        } catch (TimeoutException e) {
+            respond(exchange, HttpURLConnection.HTTP_GATEWAY_TIMEOUT, e.getMessage());
+        } catch (RuntimeException e) {
+            respond(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private String translate(String text, SourceLanguage from, TargetLanguage to) throws IllegalStateException, TimeoutException {
+        if (from == null || to == null)
+            throw new IllegalStateException("Language is null");
+
+        try {
+            return cache.get(cacheKey(text, from, to), () -> translator.translate(text, from, to));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Key of the cache and of the consistent hashing in {@link RemoteDeepLTranslator}.
+     */
+    static String cacheKey(String text, SourceLanguage from, TargetLanguage to) {
+        return from.getLanguageCode() + '|' + to.getLanguageCode() + '|' + text;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> query = new HashMap<>();
+
+        if (rawQuery == null)
+            return query;
+
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+
+            if (separator > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+
+        return query;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = (body == null ? "" : body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Starts a server with the default configuration.
+     * <p></p>
+     * Arguments: [port] [cache size] [threads], default port is 8080, default cache size is 10000
+     * and default number of threads is {@link TranslationServer#DEFAULT_THREADS}.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        long cacheSize = args.length > 1 ? Long.parseLong(args[1]) : 10000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_THREADS;
+
+        DeepLTranslator translator = new DeepLTranslator();
+        TranslationServer server = new TranslationServer(translator, new InetSocketAddress(port), cacheSize, threads);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            DeepLTranslator.shutdown();
+        }));
+
+        server.start();
+        System.out.println("Translation server listening on port " + server.getAddress().getPort());
+    }
+
+}
@@ -0,0 +1,133 @@
+package de.linus.deepltranslator;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveTimeoutsTest {
+
+    /**
+     * Default of {@link DeepLConfiguration#getTimeout()}.
+     */
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static final Duration DELAY = Duration.ofSeconds(3);
+
+    private final AdaptiveTimeouts timeouts = new AdaptiveTimeouts.Builder()
+            .setJitter(0)
+            .build();
+
+    @Test
+    public void usesConfigurationWithoutSamples() {
+        assertEquals(TIMEOUT, timeout(100, 0));
+        assertEquals(DELAY, timeouts.getRetryDelay(100, SourceLanguage.ENGLISH, TargetLanguage.GERMAN, 0, false, DELAY));
+    }
+
+    @Test
+    public void timeoutFollowsPercentile() {
+        record(100, 1000, 50);
+
+        long millis = timeout(100, 0).toMillis();
+        assertTrue(String.valueOf(millis), millis >= 2000 && millis <= 2500);
+    }
+
+    @Test
+    public void retriesDoubleUpToConfiguredTimeout() {
+        record(100, 1000, 50);
+
+        assertEquals(timeout(100, 0).toMillis() * 2, timeout(100, 1).toMillis());
+        assertEquals(TIMEOUT, timeout(100, 3));
+    }
+
+    @Test
+    public void maxTimeoutIsConfiguredTimeout() {
+        record(100, 8000, 50);
+
+        assertEquals(TIMEOUT, timeout(100, 0));
+        assertEquals(Duration.ofSeconds(5), timeouts.getTimeout(100, SourceLanguage.ENGLISH, TargetLanguage.GERMAN, 0, Duration.ofSeconds(5)));
+    }
+
+    @Test
+    public void lengthBucketsAreSeparate() {
+        record(100, 1000, 50);
+        record(3000, 4000, 50);
+
+        assertTrue(timeout(100, 0).toMillis() <= 2500);
+        assertTrue(timeout(3000, 0).toMillis() >= 8000);
+    }
+
+    @Test
+    public void fallsBackToLengthBucketWithFewSamples() {
+        record(100, 1000, 50);
+
+        assertEquals(timeout(100, 0), timeouts.getTimeout(100, SourceLanguage.FRENCH, TargetLanguage.ITALIAN, 0, TIMEOUT));
+    }
+
+    @Test
+    public void timeoutDoesNotRatchet() {
+        // Every 20th request never completes, all others take 1 second
+        Duration timeout = null;
+
+        for (int i = 0; i < 1000; i++) {
+            timeout = timeout(100, 0);
+            assertTrue(timeout.compareTo(TIMEOUT) <= 0);
+
+            if (i % 20 == 0) {
+                timeouts.recordTimeout(100, SourceLanguage.ENGLISH, TargetLanguage.GERMAN);
+            } else {
+                timeouts.record(100, SourceLanguage.ENGLISH, TargetLanguage.GERMAN, 1000);
+            }
+        }
+
+        // More timeouts than the 99th percentile allows, so the percentile is unknown
+        assertEquals(TIMEOUT, timeout);
+    }
+
+    @Test
+    public void rareTimeoutsKeepTimeoutShort() {
+        for (int i = 0; i < 1000; i++) {
+            if (i % 200 == 0) {
+                timeouts.recordTimeout(100, SourceLanguage.ENGLISH, TargetLanguage.GERMAN);
+            } else {
+                timeouts.record(100, SourceLanguage.ENGLISH, TargetLanguage.GERMAN, 1000);
+            }
+        }
+
+        assertTrue(timeout(100, 0).toMillis() <= 2500);
+    }
+
+    @Test
+    public void retryDelayBacksOffUnlessCrashed() {
+        record(100, 1000, 50);
+
+        long first = timeouts.getRetryDelay(100, SourceLanguage.ENGLISH, TargetLanguage.GERMAN, 0, false, DELAY).toMillis();
+        long second = timeouts.getRetryDelay(100, SourceLanguage.ENGLISH, TargetLanguage.GERMAN, 1, false, DELAY).toMillis();
+
+        assertTrue(first >= 1000 && first <= 1250);
+        assertEquals(first * 2, second);
+        assertEquals(timeouts.getMinRetryDelay(),
+                timeouts.getRetryDelay(100, SourceLanguage.ENGLISH, TargetLanguage.GERMAN, 1, true, DELAY));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsMinimumGreaterThanMaximum() {
+        new AdaptiveTimeouts.Builder()
+                .setMinTimeout(Duration.ofSeconds(5))
+                .setMaxTimeout(Duration.ofSeconds(4))
+                .build();
+    }
+
+    private void record(int textLength, long millis, int count) {
+        for (int i = 0; i < count; i++) {
+            timeouts.record(textLength, SourceLanguage.ENGLISH, TargetLanguage.GERMAN, millis);
+        }
+    }
+
+    private Duration timeout(int textLength, int attempt) {
+        return timeouts.getTimeout(textLength, SourceLanguage.ENGLISH, TargetLanguage.GERMAN, attempt, TIMEOUT);
+    }
+
+}
@@ -0,0 +1,27 @@
+package de.linus.deepltranslator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AutoscalingPolicyTest {
+
+    @Test
+    public void capacityIsLimitedByTheMemoryBudget() {
+        AutoscalingPolicy policy = new AutoscalingPolicy.Builder().setMaxInstances(8).setMemoryBudget(2500).setInstanceMemory(1000).build();
+
+        assertEquals(2, policy.getCapacity());
+        assertEquals(8, new AutoscalingPolicy.Builder().setMaxInstances(8).build().getCapacity());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsBudgetBelowOneInstance() {
+        new AutoscalingPolicy.Builder().setMinInstances(0).setMemoryBudget(999).setInstanceMemory(1000).build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsMinimumAboveTheCapacity() {
+        new AutoscalingPolicy.Builder().setMinInstances(3).setMemoryBudget(2000).setInstanceMemory(1000).build();
+    }
+
+}
@@ -0,0 +1,45 @@
+package de.linus.deepltranslator;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DriverRecyclingPolicyTest {
+
+    @Test
+    public void expiresAfterMaxJobs() {
+        DriverRecyclingPolicy policy = new DriverRecyclingPolicy.Builder().setMaxJobs(3).setMaxAge(null).build();
+
+        assertFalse(policy.isExpired(2, Long.MAX_VALUE));
+        assertTrue(policy.isExpired(3, 0));
+    }
+
+    @Test
+    public void expiresAfterMaxAge() {
+        DriverRecyclingPolicy policy = new DriverRecyclingPolicy.Builder().setMaxJobs(0).setMaxAge(Duration.ofMinutes(1)).build();
+
+        assertFalse(policy.isExpired(Integer.MAX_VALUE, 59_999));
+        assertTrue(policy.isExpired(0, 60_000));
+    }
+
+    @Test
+    public void disabledNeverExpires() {
+        assertFalse(DriverRecyclingPolicy.DISABLED.isExpired(Integer.MAX_VALUE, Long.MAX_VALUE));
+        assertFalse(DriverRecyclingPolicy.DISABLED.isJsHeapCheckDue(DriverRecyclingPolicy.JS_HEAP_CHECK_INTERVAL));
+    }
+
+    @Test
+    public void readsJsHeapOnlyEveryInterval() {
+        DriverRecyclingPolicy policy = new DriverRecyclingPolicy.Builder().build();
+        int interval = DriverRecyclingPolicy.JS_HEAP_CHECK_INTERVAL;
+
+        assertFalse(policy.isJsHeapCheckDue(0));
+        assertFalse(policy.isJsHeapCheckDue(interval - 1));
+        assertTrue(policy.isJsHeapCheckDue(interval));
+        assertTrue(policy.isJsHeapCheckDue(2 * interval));
+    }
+
+}
@@ -0,0 +1,73 @@
+package de.linus.deepltranslator;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FutureUtilsTest {
+
+    @Test
+    public void firstSuccessWins() {
+        CompletableFuture<String> primary = new CompletableFuture<>();
+        CompletableFuture<String> hedge = new CompletableFuture<>();
+        CompletableFuture<String> result = FutureUtils.firstSuccessful(Arrays.asList(primary, hedge));
+
+        hedge.complete("hedge");
+        primary.complete("primary");
+
+        assertEquals("hedge", result.join());
+    }
+
+    @Test
+    public void failureWaitsForTheOtherRequest() {
+        CompletableFuture<String> primary = new CompletableFuture<>();
+        CompletableFuture<String> hedge = new CompletableFuture<>();
+        CompletableFuture<String> result = FutureUtils.firstSuccessful(Arrays.asList(primary, hedge));
+
+        primary.completeExceptionally(new BrowserCrashedException(null));
+
+        assertFalse(result.isDone());
+
+        hedge.complete("hedge");
+
+        assertEquals("hedge", result.join());
+    }
+
+    @Test
+    public void lastFailureIsPropagatedUnwrapped() {
+        CompletableFuture<String> primary = new CompletableFuture<>();
+        CompletableFuture<String> hedge = new CompletableFuture<>();
+        CompletableFuture<String> result = FutureUtils.firstSuccessful(Arrays.asList(primary, hedge));
+        IllegalStateException last = new IllegalStateException("last");
+
+        primary.completeExceptionally(new IllegalStateException("first"));
+        hedge.completeExceptionally(new CompletionException(last));
+
+        try {
+            result.join();
+            fail();
+        } catch (CompletionException e) {
+            assertSame(last, e.getCause());
+        }
+    }
+
+    @Test
+    public void completedFuturesAreHandled() {
+        CompletableFuture<String> done = CompletableFuture.completedFuture("done");
+
+        CompletableFuture<String> result = FutureUtils.firstSuccessful(Collections.singletonList(done));
+
+        assertTrue(result.isDone());
+        assertEquals("done", result.join());
+    }
+
+}
@@ -0,0 +1,72 @@
+package de.linus.deepltranslator;
+
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LanguageDetectorTest {
+
+    /**
+     * Default of {@link DeepLConfiguration#getLanguageDetectionConfidence()}.
+     */
+    private static final double CONFIDENCE = 0.95;
+
+    private final LanguageDetector detector = LanguageDetector.getDefault();
+
+    @Test
+    public void detectsSentences() {
+        assertEquals(Optional.of(SourceLanguage.ENGLISH),
+                detector.detect("The weather is nice today and we are going for a walk in the forest.", CONFIDENCE));
+        assertEquals(Optional.of(SourceLanguage.GERMAN),
+                detector.detect("Das Wetter ist heute sch\u00F6n und wir gehen im Wald spazieren.", CONFIDENCE));
+        assertEquals(Optional.of(SourceLanguage.FRENCH),
+                detector.detect("Le temps est beau aujourd'hui et nous allons nous promener dans la for\u00EAt.", CONFIDENCE));
+        assertEquals(Optional.of(SourceLanguage.RUSSIAN), detector.detect(
+                "\u0421\u0435\u0433\u043E\u0434\u043D\u044F \u0445\u043E\u0440\u043E\u0448\u0430\u044F "
+                        + "\u043F\u043E\u0433\u043E\u0434\u0430, \u0438 \u043C\u044B \u0438\u0434\u0451\u043C "
+                        + "\u0433\u0443\u043B\u044F\u0442\u044C \u0432 \u043B\u0435\u0441.", CONFIDENCE));
+    }
+
+    @Test
+    public void detectsScripts() {
+        assertEquals(Optional.of(SourceLanguage.KOREAN), detector.detect("\uC548\uB155\uD558\uC138\uC694", CONFIDENCE));
+        assertEquals(Optional.of(SourceLanguage.JAPANESE), detector.detect("\u3053\u3093\u306B\u3061\u306F\u4E16\u754C", CONFIDENCE));
+    }
+
+    @Test
+    public void namesAreNotDetected() {
+        assertEquals(Optional.empty(), detector.detect("Mercedes-Benz Vito Tourer", CONFIDENCE));
+        assertEquals(Optional.empty(), detector.detect("Volkswagen Golf GTI", CONFIDENCE));
+        assertEquals(Optional.empty(), detector.detect("iPhone 14 Pro Max", CONFIDENCE));
+    }
+
+    @Test
+    public void shortTextsAreNotDetected() {
+        assertEquals(Optional.empty(), detector.detect("Hello world", CONFIDENCE));
+        assertEquals(Optional.empty(), detector.detect("123 - 456", 0));
+    }
+
+    @Test
+    public void closeLanguagesNeedLargeMargin() {
+        Optional<SourceLanguage> danish = detector.detect("Det er en fin dag i dag, og vi g\u00E5r en tur i skoven.", CONFIDENCE);
+        Optional<SourceLanguage> czech = detector.detect("Dnes je hezk\u00E9 po\u010Das\u00ED a jdeme na proch\u00E1zku do lesa.", CONFIDENCE);
+
+        assertTrue(danish.toString(), !danish.isPresent() || danish.get() == SourceLanguage.DANISH);
+        assertTrue(czech.toString(), !czech.isPresent() || czech.get() == SourceLanguage.CZECH);
+    }
+
+    @Test
+    public void confidenceIsNotAlwaysHigh() {
+        // The most likely language is only slightly more likely than the second one
+        String text = "Please confirm your email address.";
+
+        assertTrue(detector.detect(text, 0).isPresent());
+        assertNotEquals(Optional.of(SourceLanguage.FRENCH), detector.detect(text, CONFIDENCE));
+        assertEquals(Optional.empty(), detector.detect(text, CONFIDENCE));
+    }
+
+}
@@ -0,0 +1,80 @@
+package de.linus.deepltranslator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void needsMinSamples() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 1; i < LatencyHistogram.MIN_SAMPLES; i++) {
+            histogram.record(1000);
+        }
+
+        assertEquals(-1, histogram.percentile(50));
+
+        histogram.record(1000);
+
+        assertTrue(histogram.percentile(50) > 0);
+    }
+
+    @Test
+    public void percentileIsUpperBoundOfBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 0; i < 100; i++) {
+            histogram.record(1000);
+        }
+
+        long latency = histogram.percentile(99);
+        assertTrue(String.valueOf(latency), latency >= 1000 && latency <= 1250);
+    }
+
+    @Test
+    public void separatesFastAndSlowRequests() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 0; i < 100; i++) {
+            histogram.record(i % 10 == 0 ? 5000 : 100);
+        }
+
+        assertTrue(histogram.percentile(50) <= 125);
+        assertTrue(histogram.percentile(95) >= 5000);
+    }
+
+    @Test
+    public void timeoutsAreSlowerThanAllLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 0; i < 98; i++) {
+            histogram.record(1000);
+        }
+
+        histogram.recordTimeout();
+        histogram.recordTimeout();
+
+        assertTrue(histogram.percentile(97) > 0);
+        assertEquals(-1, histogram.percentile(99));
+    }
+
+    @Test
+    public void oldSamplesFade() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 0; i < 200; i++) {
+            histogram.record(5000);
+            histogram.recordTimeout();
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            histogram.record(100);
+        }
+
+        assertTrue(histogram.percentile(99) <= 125);
+    }
+
+}
@@ -0,0 +1,299 @@
+package de.linus.deepltranslator;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.After;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PoolAutoscalerTest {
+
+    private static final long TIMEOUT_MILLIS = 2000;
+
+    private final BlockingQueue<WebDriver> available = new LinkedBlockingQueue<>();
+    private final List<WebDriver> instances = Collections.synchronizedList(new ArrayList<>());
+    private final List<WebDriver> retired = Collections.synchronizedList(new ArrayList<>());
+    private final TestClock clock = new TestClock(LocalDateTime.of(2024, 1, 1, 9, 0));
+    private final long lastUsedMillis = clock.millis();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService waiters = Executors.newCachedThreadPool();
+    private PoolAutoscaler autoscaler;
+
+    @After
+    public void tearDown() {
+        autoscaler.shutdown();
+        waiters.shutdownNow();
+    }
+
+    @Test
+    public void scalesUpWhenARequestWaitsTooLong() throws Exception {
+        autoscaler = autoscaler(new AutoscalingPolicy.Builder().setPrestartLookahead(null).build());
+        addBusyInstances(1);
+
+        CompletableFuture<WebDriver> request = await();
+        awaitWaitingRequests();
+        tick();
+
+        assertEquals(1, instances.size());
+
+        clock.advance(Duration.ofMillis(250));
+        tick();
+
+        assertNotNull(request.get());
+        assertEquals(2, instances.size());
+    }
+
+    @Test
+    public void scalesUpWhenTooManyRequestsWait() throws Exception {
+        autoscaler = autoscaler(new AutoscalingPolicy.Builder().setPrestartLookahead(null).setScaleUpQueueDepth(2).build());
+        addBusyInstances(1);
+
+        CompletableFuture<WebDriver> first = await();
+        awaitWaitingRequests();
+        tick();
+
+        assertEquals(1, instances.size());
+
+        // The request registers and checks the pool without any time passing
+        CompletableFuture<WebDriver> second = await();
+
+        assertNotNull(first.get());
+        assertNotNull(second.get());
+        assertEquals(3, instances.size());
+    }
+
+    @Test
+    public void staysWithinTheMemoryBudget() throws Exception {
+        autoscaler = autoscaler(new AutoscalingPolicy.Builder()
+                .setPrestartLookahead(null)
+                .setMemoryBudget(2000)
+                .setInstanceMemory(1000)
+                .build());
+
+        List<CompletableFuture<WebDriver>> requests = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            requests.add(await());
+        }
+
+        int served = 0;
+
+        for (CompletableFuture<WebDriver> request : requests) {
+            if (request.get() != null) {
+                served++;
+            }
+        }
+
+        assertEquals(2, served);
+        assertEquals(2, instances.size());
+    }
+
+    @Test
+    public void retiresOneIdleInstancePerTick() throws Exception {
+        autoscaler = autoscaler(new AutoscalingPolicy.Builder()
+                .setPrestartLookahead(null)
+                .setMinInstances(1)
+                .setIdleTimeout(Duration.ofMinutes(5))
+                .build());
+
+        for (int i = 0; i < 3; i++) {
+            WebDriver driver = newDriver();
+            instances.add(driver);
+            available.add(driver);
+        }
+
+        clock.advance(Duration.ofMinutes(5));
+
+        tick();
+        assertEquals(1, retired.size());
+
+        tick();
+        assertEquals(2, retired.size());
+
+        // The minimum is kept
+        tick();
+        assertEquals(2, retired.size());
+        assertEquals(1, instances.size());
+        assertEquals(1, available.size());
+    }
+
+    @Test
+    public void keepsInstancesWhichWereUsedRecently() throws Exception {
+        autoscaler = autoscaler(new AutoscalingPolicy.Builder().setPrestartLookahead(null).setMinInstances(0).build());
+        WebDriver driver = newDriver();
+        instances.add(driver);
+        available.add(driver);
+
+        clock.advance(Duration.ofMinutes(4));
+        tick();
+
+        assertTrue(retired.isEmpty());
+    }
+
+    @Test
+    public void prestartsForTheLearnedHourlyDemand() throws Exception {
+        autoscaler = autoscaler(new AutoscalingPolicy.Builder().setPrestartLookahead(Duration.ofMinutes(10)).setMinInstances(0).build());
+        addBusyInstances(3);
+
+        // Peak demand of 3 between 9:00 and 10:00
+        tick();
+        clock.advance(Duration.ofHours(1));
+        tick();
+
+        // The busy instances are quit
+        instances.clear();
+        clock.advance(Duration.ofHours(22).plusMinutes(40));
+        tick();
+
+        assertEquals(8, LocalDateTime.now(clock).getHour());
+        assertEquals(0, instances.size());
+
+        // 9:00 on the next day is within the lookahead
+        clock.advance(Duration.ofMinutes(10));
+        tick();
+
+        assertEquals(3, instances.size());
+        assertEquals(3, available.size());
+    }
+
+    @Test
+    public void waitsForReturnedInstancesAfterShutdown() throws Exception {
+        autoscaler = autoscaler(new AutoscalingPolicy.Builder().build());
+        autoscaler.shutdown();
+
+        WebDriver driver = newDriver();
+        CompletableFuture<WebDriver> request = await();
+        awaitWaitingRequests();
+        available.add(driver);
+
+        assertSame(driver, request.get());
+        assertNull(autoscaler.awaitDriver(System.currentTimeMillis() + 200, new AtomicBoolean()));
+        assertTrue(instances.isEmpty());
+    }
+
+    @Test
+    public void cancelledRequestStopsWaiting() throws Exception {
+        autoscaler = autoscaler(new AutoscalingPolicy.Builder().setPrestartLookahead(null).build());
+        addBusyInstances(1);
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        CompletableFuture<WebDriver> request = CompletableFuture.supplyAsync(
+                () -> autoscaler.awaitDriver(System.currentTimeMillis() + 60_000, cancelled), waiters);
+        awaitWaitingRequests();
+        cancelled.set(true);
+
+        assertNull(request.get());
+        assertFalse(autoscaler.hasWaitingRequests());
+    }
+
+    private PoolAutoscaler autoscaler(AutoscalingPolicy policy) {
+        return new PoolAutoscaler(policy, available, instances, timeout -> {
+            WebDriver driver = newDriver();
+            instances.add(driver);
+            return driver;
+        }, driver -> {
+            instances.remove(driver);
+            retired.add(driver);
+        }, driver -> lastUsedMillis, clock, scheduler, MoreExecutors.newDirectExecutorService());
+    }
+
+    private void addBusyInstances(int count) {
+        for (int i = 0; i < count; i++) {
+            instances.add(newDriver());
+        }
+    }
+
+    private CompletableFuture<WebDriver> await() {
+        return CompletableFuture.supplyAsync(
+                () -> autoscaler.awaitDriver(System.currentTimeMillis() + TIMEOUT_MILLIS, new AtomicBoolean()), waiters);
+    }
+
+    private void awaitWaitingRequests() throws InterruptedException {
+        long end = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+        while (!autoscaler.hasWaitingRequests()) {
+            if (System.currentTimeMillis() > end)
+                fail("No waiting request");
+
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Checks the pool on the scheduler, after the checks of the waiting requests.
+     */
+    private void tick() throws ExecutionException, InterruptedException {
+        scheduler.submit(autoscaler::tick).get();
+    }
+
+    private static WebDriver newDriver() {
+        return (WebDriver) Proxy.newProxyInstance(PoolAutoscalerTest.class.getClassLoader(), new Class<?>[]{WebDriver.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static class TestClock extends Clock {
+
+        private final AtomicLong millis;
+
+        private TestClock(LocalDateTime time) {
+            millis = new AtomicLong(time.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+
+        private void advance(Duration duration) {
+            millis.addAndGet(duration.toMillis());
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis.get());
+        }
+
+    }
+
+}
@@ -0,0 +1,124 @@
+package de.linus.deepltranslator;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class PostProcessorsTest {
+
+    private static final char[] ALPHABET = {
+            'a', 'b', 'r', 'x', ' ', ' ', '\t', '\n', '\r', '\u000B', '\f', '\u001C', '\u0085', '\u00A0',
+            '\u1680', '\u2007', '\u2009', '\u202F', '\u3000', '<', '>', '/', '&', ';', '#', '\u00E9'
+    };
+
+    @Test
+    public void defaultMatchesRegex() {
+        Random random = new Random(42);
+
+        for (int n = 0; n < 20_000; n++) {
+            String text = randomText(random);
+            assertEquals(text, text.trim().replaceAll("\\s{2,}", " "), PostProcessors.apply(text, PostProcessors.DEFAULT));
+        }
+    }
+
+    @Test
+    public void normalizeWhitespaceMatchesReference() {
+        Random random = new Random(7);
+
+        for (int n = 0; n < 20_000; n++) {
+            String text = randomText(random);
+            assertEquals(text, normalizeWhitespace(text, false), PostProcessors.apply(text, PostProcessors.NORMALIZE_WHITESPACE));
+            assertEquals(text, normalizeWhitespace(text, true),
+                    PostProcessors.apply(text, PostProcessors.NORMALIZE_WHITESPACE_PRESERVE_NEWLINES));
+        }
+    }
+
+    @Test
+    public void preserveNewlinesMatchesRegex() {
+        Random random = new Random(3);
+
+        for (int n = 0; n < 20_000; n++) {
+            String text = randomText(random).replace('x', '<');
+            assertEquals(text, text.replaceAll("<[bB][rR] */?>", "\n"), PostProcessors.apply(text, PostProcessors.PRESERVE_NEWLINES));
+        }
+    }
+
+    @Test
+    public void unchangedTextIsReturnedAsIs() {
+        String text = "Hallo Welt.\nWie geht es?";
+
+        assertSame(text, PostProcessors.apply(text, PostProcessors.DEFAULT));
+        assertSame(text, PostProcessors.apply(text, PostProcessors.PRESERVE_NEWLINES, PostProcessors.DECODE_HTML_ENTITIES,
+                PostProcessors.NORMALIZE_WHITESPACE_PRESERVE_NEWLINES));
+    }
+
+    @Test
+    public void builtInsProcessArrays() {
+        String text = " Tom &amp; Jerry ";
+        char[] output = new char[text.length()];
+
+        int length = PostProcessors.DECODE_HTML_ENTITIES.process(text.toCharArray(), text.length(), output);
+        assertEquals(" Tom & Jerry ", new String(output, 0, length));
+        assertEquals(-1, PostProcessors.DEFAULT.process("a b".toCharArray(), 3, output));
+    }
+
+    @Test
+    public void chainDecodesMarkup() {
+        String text = " Tom &amp; Jerry<br/>&lt;3 &#39;a&#x27;  b\t<BR >c ";
+
+        assertEquals("Tom & Jerry\n<3 'a' b\nc", PostProcessors.apply(text, PostProcessors.PRESERVE_NEWLINES,
+                PostProcessors.DECODE_HTML_ENTITIES, PostProcessors.NORMALIZE_WHITESPACE_PRESERVE_NEWLINES));
+    }
+
+    @Test
+    public void decodesSupplementaryCodePoints() {
+        assertEquals("\uD83D\uDE00!", PostProcessors.apply("&#x1F600;!", PostProcessors.DECODE_HTML_ENTITIES));
+        assertEquals("\u00A0", PostProcessors.apply("&nbsp;", PostProcessors.DECODE_HTML_ENTITIES));
+    }
+
+    @Test
+    public void rejectsNulSurrogatesAndUnknownEntities() {
+        for (String text : new String[] {"&#0;", "&#x0;", "&#xD800;", "&#57343;", "&#x110000;", "&foo;", "& amp;", "&#;", "&#x;"}) {
+            assertEquals(text, PostProcessors.apply(text, PostProcessors.DECODE_HTML_ENTITIES));
+        }
+    }
+
+    private static String randomText(Random random) {
+        char[] chars = new char[random.nextInt(24)];
+
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Straightforward implementation of {@link PostProcessors#NORMALIZE_WHITESPACE} and its variant preserving newlines.
+     */
+    private static String normalizeWhitespace(String text, boolean preserveNewlines) {
+        StringBuilder result = new StringBuilder();
+        StringBuilder whitespace = new StringBuilder();
+
+        for (char c : text.toCharArray()) {
+            if (c == '\u00A0' || Character.isWhitespace(c)) {
+                whitespace.append(c);
+                continue;
+            }
+
+            if (whitespace.length() > 0 && result.length() > 0) {
+                String newlines = whitespace.toString().replaceAll("[^\n]", "");
+                result.append(preserveNewlines && !newlines.isEmpty() ? newlines : " ");
+            }
+
+            whitespace.setLength(0);
+            result.append(c);
+        }
+
+        return result.toString();
+    }
+
+}
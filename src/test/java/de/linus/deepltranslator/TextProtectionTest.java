@@ -0,0 +1,85 @@
+package de.linus.deepltranslator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TextProtectionTest {
+
+    private final TextProtection protection = new TextProtection.Builder()
+            .addTerms("Go", "DeepL", "DeepL Translator")
+            .build();
+
+    @Test
+    public void masksTermsPlaceholdersAndMarkup() {
+        TextProtection.MaskedText masked = protection.mask("Use <b>DeepL Translator</b> with {name} and %1$s.");
+
+        assertEquals("Use [[0]][[1]][[2]] with [[3]] and [[4]].", masked.getText());
+        assertEquals("Benutze <b>DeepL Translator</b> mit {name} und %1$s.",
+                masked.restore("Benutze [[0]][[1]][[2]] mit [[3]] und [[4]]."));
+    }
+
+    @Test
+    public void matchesWholeWordsOnly() {
+        TextProtection.MaskedText masked = protection.mask("Good Go");
+
+        assertEquals("Good [[0]]", masked.getText());
+        assertEquals("Gut Go", masked.restore("Gut [[0]]"));
+    }
+
+    @Test
+    public void toleratesSpacesInsideTokens() {
+        TextProtection.MaskedText masked = protection.mask("Go home");
+
+        assertEquals("Go nach Hause", masked.restore("[[ 0 ]] nach Hause"));
+    }
+
+    @Test
+    public void existingTokensAreRestoredLiterally() {
+        String text = "Good Go DeepL's [[0]] literal [[ 1 ]]";
+        TextProtection.MaskedText masked = protection.mask(text);
+
+        assertEquals("Good [[0]] [[1]]'s [[2]] literal [[3]]", masked.getText());
+        assertEquals(text, masked.restore(masked.getText()));
+    }
+
+    @Test
+    public void existingTokensAreProtectedWithoutOtherSpans() {
+        TextProtection.MaskedText masked = new TextProtection.Builder().build().mask("Keep [[0]]");
+
+        assertTrue(masked.isMasked());
+        assertEquals("Keep [[0]]", masked.restore(masked.getText()));
+    }
+
+    @Test
+    public void unmatchedBracketsAndTagsAreKept() {
+        String text = "a [[ b ]] < c [[x]] <a<a";
+        TextProtection.MaskedText masked = protection.mask(text);
+
+        assertFalse(masked.isMasked());
+        assertEquals(text, masked.getText());
+        assertEquals(text, masked.restore(text));
+    }
+
+    @Test
+    public void percentSignWithSpaceIsNoPlaceholder() {
+        assertFalse(protection.mask("50 % sure").isMasked());
+    }
+
+    @Test(timeout = 5000)
+    public void nestedTagStartsAreMaskedInLinearTime() {
+        StringBuilder text = new StringBuilder();
+
+        for (int i = 0; i < 200_000; i++) {
+            text.append("<a");
+        }
+
+        text.append("<b>");
+
+        TextProtection.MaskedText masked = protection.mask(text.toString());
+        assertEquals(text.substring(0, text.length() - 3) + "[[0]]", masked.getText());
+    }
+
+}
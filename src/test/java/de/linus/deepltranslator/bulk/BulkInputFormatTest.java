@@ -0,0 +1,89 @@
+package de.linus.deepltranslator.bulk;
+
+import org.junit.Test;
+import org.openqa.selenium.json.Json;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class BulkInputFormatTest {
+
+    private static final Json JSON = new Json();
+
+    @Test
+    public void linesReplaceLineBreaks() {
+        BulkInputFormat.Record record = BulkInputFormat.LINES.parse("Hello", null);
+
+        assertEquals("Hello", record.text);
+        assertEquals("Hallo Welt !", record.output.apply("Hallo\r\nWelt\n!"));
+        assertEquals("", BulkInputFormat.LINES.error("Hello", null, "Too long"));
+    }
+
+    @Test
+    public void csvReplacesColumnAndQuotes() {
+        BulkInputFormat.Record record = BulkInputFormat.CSV.parse("1,\"Hello, \"\"World\"\"\",x", "1");
+
+        assertEquals("Hello, \"World\"", record.text);
+        assertEquals("1,\"Hallo, \"\"Welt\"\"\",x", record.output.apply("Hallo, \"Welt\""));
+        assertEquals("1,Hallo,x", BulkInputFormat.CSV.parse("1,Hello,x", "1").output.apply("Hallo"));
+    }
+
+    @Test
+    public void csvReplacesLineBreaks() {
+        BulkInputFormat.Record record = BulkInputFormat.CSV.parse("1,Hello,x", "1");
+
+        assertEquals("1,Hallo Welt !,x", record.output.apply("Hallo\r\nWelt\n!"));
+    }
+
+    @Test
+    public void csvWithoutColumnIsKept() {
+        BulkInputFormat.Record record = BulkInputFormat.CSV.parse("1,2", "5");
+
+        assertEquals("", record.text);
+        assertEquals("1,2", record.output.apply(""));
+    }
+
+    @Test
+    public void csvErrorEmptiesText() {
+        assertEquals("1,,x", BulkInputFormat.CSV.error("1,Hello,x", "1", "Too long"));
+    }
+
+    @Test
+    public void jsonlAddsTranslation() {
+        BulkInputFormat.Record record = BulkInputFormat.JSONL.parse("{\"id\":7,\"text\":\"Hello\"}", "text");
+        Map<String, Object> object = JSON.toType(record.output.apply("Hallo"), Json.MAP_TYPE);
+
+        assertEquals("Hello", record.text);
+        assertEquals("Hallo", object.get(BulkInputFormat.TRANSLATION_FIELD));
+        assertEquals(7L, ((Number) object.get("id")).longValue());
+    }
+
+    @Test
+    public void jsonlWithoutTextIsKept() {
+        assertEquals("", BulkInputFormat.JSONL.parse("{\"id\":7}", "text").text);
+        assertEquals("", BulkInputFormat.JSONL.parse("  ", "text").text);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void jsonlRejectsInvalidJson() {
+        BulkInputFormat.JSONL.parse("{\"text\":", "text");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void jsonlRejectsNull() {
+        BulkInputFormat.JSONL.parse("null", "text");
+    }
+
+    @Test
+    public void jsonlErrorAddsErrorField() {
+        Map<String, Object> object = JSON.toType(BulkInputFormat.JSONL.error("{\"id\":7}", "text", "Too long"), Json.MAP_TYPE);
+        Map<String, Object> invalid = JSON.toType(BulkInputFormat.JSONL.error("{\"text\":", "text", "Invalid JSON"), Json.MAP_TYPE);
+
+        assertEquals("Too long", object.get(BulkInputFormat.ERROR_FIELD));
+        assertFalse(object.containsKey(BulkInputFormat.TRANSLATION_FIELD));
+        assertEquals("Invalid JSON", invalid.get(BulkInputFormat.ERROR_FIELD));
+    }
+
+}
@@ -0,0 +1,187 @@
+package de.linus.deepltranslator.bulk;
+
+import de.linus.deepltranslator.SourceLanguage;
+import de.linus.deepltranslator.TargetLanguage;
+import de.linus.deepltranslator.Translator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class BulkTranslationJobTest {
+
+    private static final Json JSON = new Json();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void translatesInOrderAndOnlyOnce() throws IOException {
+        FakeTranslator translator = new FakeTranslator();
+        Path input = write("input.txt", "a", "b", "", "a", "c", "b");
+        Path output = folder.getRoot().toPath().resolve("output.txt");
+
+        long lines = job(translator, input, output, BulkInputFormat.LINES).run();
+
+        assertEquals(6, lines);
+        assertEquals(Arrays.asList("A", "B", "", "A", "C", "B"), read(output));
+        assertEquals(3, translator.calls.get());
+    }
+
+    @Test
+    public void invalidLinesAreMarkedAndSkipped() throws IOException {
+        FakeTranslator translator = new FakeTranslator();
+        Path input = write("input.txt", "a", "too long for the translator", "b", "blank", "c");
+        Path output = folder.getRoot().toPath().resolve("output.txt");
+        BulkTranslationJob job = job(translator, input, output, BulkInputFormat.LINES);
+
+        assertEquals(5, job.run());
+        assertEquals(Arrays.asList("A", "", "B", "", "C"), read(output));
+        assertEquals(Arrays.asList("2\tText length is limited", "4\tText is blank"), read(job.getErrors()));
+    }
+
+    @Test
+    public void invalidJsonIsMarked() throws IOException {
+        Path input = write("input.jsonl", "{\"text\":\"a\"}", "{\"text\":", "{\"text\":\"b\"}");
+        Path output = folder.getRoot().toPath().resolve("output.jsonl");
+
+        assertEquals(3, job(new FakeTranslator(), input, output, BulkInputFormat.JSONL).run());
+
+        List<String> lines = read(output);
+        assertEquals("A", field(lines.get(0), BulkInputFormat.TRANSLATION_FIELD));
+        assertEquals("Invalid JSON: {\"text\":", field(lines.get(1), BulkInputFormat.ERROR_FIELD));
+        assertEquals("B", field(lines.get(2), BulkInputFormat.TRANSLATION_FIELD));
+    }
+
+    @Test
+    public void resumesAfterTimeout() throws IOException {
+        FakeTranslator translator = new FakeTranslator();
+        translator.timeout = "d";
+        Path input = write("input.txt", "a", "too long for the translator", "c", "d", "e");
+        Path output = folder.getRoot().toPath().resolve("output.txt");
+        BulkTranslationJob job = job(translator, input, output, BulkInputFormat.LINES);
+
+        try {
+            job.run();
+            fail("Timeout expected");
+        } catch (TimeoutException expected) {
+            // The job stops before the failed line
+        }
+
+        assertEquals(Arrays.asList("A", "", "C"), read(output));
+
+        translator.timeout = null;
+        assertEquals(2, job.run());
+        assertEquals(Arrays.asList("A", "", "C", "D", "E"), read(output));
+        assertEquals(Collections.singletonList("2\tText length is limited"), read(job.getErrors()));
+
+        // Nothing is left to do
+        assertEquals(0, job.run());
+        assertEquals(5, read(output).size());
+    }
+
+    @Test
+    public void resumesAtTheCheckpointedInputOffset() throws IOException {
+        FakeTranslator translator = new FakeTranslator();
+        translator.timeout = "c";
+        Path input = folder.getRoot().toPath().resolve("input.txt");
+        Files.write(input, "a\r\nb\r\nc\r\n".getBytes(StandardCharsets.UTF_8));
+        Path output = folder.getRoot().toPath().resolve("output.txt");
+        BulkTranslationJob job = job(translator, input, output, BulkInputFormat.LINES);
+
+        try {
+            job.run();
+            fail("Timeout expected");
+        } catch (TimeoutException expected) {
+            // The job stops before the failed line
+        }
+
+        assertEquals(Arrays.asList("A", "B"), read(output));
+
+        // The lines before the checkpoint are not read again, so replacing them with as many bytes changes nothing
+        Files.write(input, "xxxxxxc\r\n".getBytes(StandardCharsets.UTF_8));
+        translator.timeout = null;
+
+        assertEquals(1, job.run());
+        assertEquals(Arrays.asList("A", "B", "C"), read(output));
+    }
+
+    @Test
+    public void noErrorFileWithoutInvalidLines() throws IOException {
+        Path input = write("input.txt", "a");
+        Path output = folder.getRoot().toPath().resolve("output.txt");
+        BulkTranslationJob job = job(new FakeTranslator(), input, output, BulkInputFormat.LINES);
+
+        job.run();
+
+        assertFalse(Files.exists(job.getErrors()));
+    }
+
+    private static BulkTranslationJob job(Translator translator, Path input, Path output, BulkInputFormat format) {
+        return new BulkTranslationJob.Builder(translator, input, output, SourceLanguage.ENGLISH, TargetLanguage.GERMAN)
+                .setFormat(format)
+                .setParallelism(1)
+                .setCheckpointInterval(1)
+                .build();
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        return Files.write(folder.getRoot().toPath().resolve(name), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    private static Object field(String line, String name) {
+        Map<String, Object> object = JSON.toType(line, Json.MAP_TYPE);
+        return object.get(name);
+    }
+
+    private static List<String> read(Path path) throws IOException {
+        return Files.readAllLines(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Upper-cases the text like {@link de.linus.deepltranslator.DeepLTranslator} would translate it:
+     * texts longer than 20 characters are rejected immediately, "blank" fails like a text which is blank after masking.
+     */
+    private static class FakeTranslator implements Translator {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile String timeout;
+
+        @Override
+        public String translate(String text, SourceLanguage from, TargetLanguage to) {
+            if (text.equals("blank"))
+                throw new IllegalStateException("Text is blank");
+            if (text.equals(timeout))
+                throw new TimeoutException("Translation timed out");
+
+            return text.toUpperCase();
+        }
+
+        @Override
+        public CompletableFuture<String> translateAsync(String text, SourceLanguage from, TargetLanguage to) {
+            if (text.length() > 20)
+                throw new IllegalStateException("Text length is limited");
+
+            calls.incrementAndGet();
+            return CompletableFuture.supplyAsync(() -> translate(text, from, to));
+        }
+
+    }
+
+}
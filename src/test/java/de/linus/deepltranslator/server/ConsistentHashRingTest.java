@@ -0,0 +1,81 @@
+package de.linus.deepltranslator.server;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConsistentHashRingTest {
+
+    private static final List<String> NODES = Arrays.asList("http://a:8080", "http://b:8080", "http://c:8080");
+
+    @Test
+    public void returnsEveryNodeOnce() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(NODES, 100);
+
+        for (int i = 0; i < 100; i++) {
+            List<String> nodes = ring.getNodes("key" + i);
+
+            assertEquals(3, nodes.size());
+            assertTrue(nodes.containsAll(NODES));
+        }
+    }
+
+    @Test
+    public void ignoresDuplicateNodes() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(Arrays.asList("http://a:8080", "http://a:8080"), 100);
+
+        assertEquals(Collections.singletonList("http://a:8080"), ring.getNodes("key"));
+    }
+
+    @Test
+    public void emptyRingReturnsNoNodes() {
+        assertTrue(new ConsistentHashRing<String>(Collections.emptyList(), 100).getNodes("key").isEmpty());
+    }
+
+    @Test
+    public void orderDoesNotDependOnTheInstance() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(NODES, 100);
+        ConsistentHashRing<String> reversed = new ConsistentHashRing<>(Arrays.asList(NODES.get(2), NODES.get(1), NODES.get(0)), 100);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(ring.getNodes("key" + i), reversed.getNodes("key" + i));
+        }
+    }
+
+    @Test
+    public void removingNodeOnlyMovesItsKeys() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(NODES, 100);
+        ConsistentHashRing<String> reduced = new ConsistentHashRing<>(NODES.subList(0, 2), 100);
+
+        for (int i = 0; i < 1000; i++) {
+            List<String> nodes = ring.getNodes("key" + i);
+            String owner = reduced.getNodes("key" + i).get(0);
+
+            // Keys of the removed node move to their first fallback, all others stay
+            assertEquals(nodes.get(0).equals(NODES.get(2)) ? nodes.get(1) : nodes.get(0), owner);
+        }
+    }
+
+    @Test
+    public void spreadsKeysEvenly() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(NODES, 100);
+        Map<String, Integer> keys = new HashMap<>();
+
+        for (int i = 0; i < 3000; i++) {
+            keys.merge(ring.getNodes("key" + i).get(0), 1, Integer::sum);
+        }
+
+        for (String node : NODES) {
+            int count = keys.getOrDefault(node, 0);
+            assertTrue(node + " owns " + count + " keys", count > 600 && count < 1400);
+        }
+    }
+
+}
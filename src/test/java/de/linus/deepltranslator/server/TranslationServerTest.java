@@ -0,0 +1,152 @@
+package de.linus.deepltranslator.server;
+
+import de.linus.deepltranslator.SourceLanguage;
+import de.linus.deepltranslator.TargetLanguage;
+import de.linus.deepltranslator.Translator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.TimeoutException;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TranslationServerTest {
+
+    private static final int TEXTS = 50;
+
+    private FakeTranslator translatorA;
+    private FakeTranslator translatorB;
+    private TranslationServer serverA;
+    private TranslationServer serverB;
+    private RemoteDeepLTranslator remote;
+
+    @Before
+    public void setUp() throws IOException {
+        translatorA = new FakeTranslator("a");
+        translatorB = new FakeTranslator("b");
+        serverA = start(translatorA);
+        serverB = start(translatorB);
+        remote = new RemoteDeepLTranslator(Arrays.asList(uri(serverA), uri(serverB)), Duration.ofSeconds(1));
+    }
+
+    @After
+    public void tearDown() {
+        serverA.stop(0);
+        serverB.stop(0);
+    }
+
+    @Test
+    public void routesEachTextToOneNodeAndCachesIt() {
+        for (int n = 0; n < 2; n++) {
+            for (int i = 0; i < TEXTS; i++) {
+                String translation = remote.translate("text " + i, SourceLanguage.ENGLISH, TargetLanguage.GERMAN);
+                assertTrue(translation, translation.equals("a:text " + i) || translation.equals("b:text " + i));
+            }
+        }
+
+        // Every text was translated once, on one of the nodes, and both nodes got texts
+        assertEquals(TEXTS, translatorA.calls() + translatorB.calls());
+        assertTrue(translatorA.calls() > 0);
+        assertTrue(translatorB.calls() > 0);
+        translatorA.translations.values().forEach(count -> assertEquals(1, count.get()));
+        translatorB.translations.values().forEach(count -> assertEquals(1, count.get()));
+    }
+
+    @Test
+    public void failsOverToTheNextNode() {
+        serverA.stop(0);
+
+        for (int i = 0; i < TEXTS; i++) {
+            assertEquals("b:text " + i, remote.translate("text " + i, SourceLanguage.ENGLISH, TargetLanguage.GERMAN));
+        }
+
+        assertEquals(0, translatorA.calls());
+        assertEquals(TEXTS, translatorB.calls());
+    }
+
+    @Test
+    public void slowNodeIsNotFailedOver() {
+        try {
+            remote.translate(FakeTranslator.SLOW, SourceLanguage.ENGLISH, TargetLanguage.GERMAN);
+            fail();
+        } catch (TimeoutException expected) {
+            // The request is not repeated on the other node
+        }
+
+        assertEquals(1, translatorA.calls() + translatorB.calls());
+    }
+
+    @Test
+    public void invalidArgumentsAreRejected() {
+        try {
+            remote.translate(new String(new char[5001]).replace('\0', 'a'), SourceLanguage.ENGLISH, TargetLanguage.GERMAN);
+            fail();
+        } catch (IllegalStateException expected) {
+            // Checked by the client already
+        }
+
+        assertEquals(0, translatorA.calls() + translatorB.calls());
+    }
+
+    private static TranslationServer start(Translator translator) throws IOException {
+        TranslationServer server = new TranslationServer(translator, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 100, 4);
+        server.start();
+        return server;
+    }
+
+    private static URI uri(TranslationServer server) {
+        return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+    }
+
+    /**
+     * Prefixes the text with the name of the node and counts the translations per text.
+     */
+    private static class FakeTranslator implements Translator {
+
+        private static final String SLOW = "slow";
+
+        private final String name;
+        private final Map<String, AtomicInteger> translations = new ConcurrentHashMap<>();
+
+        private FakeTranslator(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String translate(String text, SourceLanguage from, TargetLanguage to) {
+            translations.computeIfAbsent(text, key -> new AtomicInteger()).incrementAndGet();
+
+            if (text.equals(SLOW)) {
+                try {
+                    Thread.sleep(3000);
+                } catch (InterruptedException ignored) {}
+            }
+
+            return name + ":" + text;
+        }
+
+        @Override
+        public CompletableFuture<String> translateAsync(String text, SourceLanguage from, TargetLanguage to) {
+            return CompletableFuture.completedFuture(translate(text, from, to));
+        }
+
+        private int calls() {
+            return translations.values().stream().mapToInt(AtomicInteger::get).sum();
+        }
+
+    }
+
+}